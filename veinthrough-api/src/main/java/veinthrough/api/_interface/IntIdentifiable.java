@@ -0,0 +1,18 @@
+package veinthrough.api._interface;
+
+/**
+ * @author veinthrough
+ * <p>
+ * An {@link Identifiable} with int identifier, indexed without boxing by
+ * {@link veinthrough.api.collection.CollectionToMap#toUniqueIntMap}.
+ * getIdentifier() is kept for Identifiable users.
+ */
+@FunctionalInterface
+public interface IntIdentifiable extends Identifiable<Integer> {
+    int getIntIdentifier();
+
+    @Override
+    default Integer getIdentifier() {
+        return getIntIdentifier();
+    }
+}
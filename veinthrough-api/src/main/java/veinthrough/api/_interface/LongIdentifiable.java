@@ -0,0 +1,18 @@
+package veinthrough.api._interface;
+
+/**
+ * @author veinthrough
+ * <p>
+ * An {@link Identifiable} with long identifier, indexed without boxing by
+ * {@link veinthrough.api.collection.CollectionToMap#toUniqueLongMap}.
+ * getIdentifier() is kept for Identifiable users.
+ */
+@FunctionalInterface
+public interface LongIdentifiable extends Identifiable<Long> {
+    long getLongIdentifier();
+
+    @Override
+    default Long getIdentifier() {
+        return getLongIdentifier();
+    }
+}
@@ -0,0 +1,103 @@
+package veinthrough.api._interface;
+
+import java.util.function.BooleanSupplier;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * @author veinthrough
+ * <p>
+ * A {@link Condition} checked by primitive boolean, 在循环中检查condition时没有Boolean的boxing/unboxing.
+ * <pre>
+ * 1. getAsBoolean(): primitive check, get()/met() are kept for Condition users
+ * 2. combinators: and/or/not
+ * 3. factories:
+ *   (1) never/always
+ *   (2) deadline: met when time(ms) elapsed, using System.nanoTime()
+ *   (3) countdown: met after n checks
+ *   (4) latch: met after released by another thread
+ *   (5) of: bridge a Condition/BooleanSupplier
+ * </pre>
+ */
+@FunctionalInterface
+@SuppressWarnings("unused")
+public interface PrimitiveCondition extends Condition, BooleanSupplier {
+    @Override
+    default Boolean get() {
+        return getAsBoolean();
+    }
+
+    default PrimitiveCondition and(BooleanSupplier other) {
+        return () -> getAsBoolean() && other.getAsBoolean();
+    }
+
+    default PrimitiveCondition or(BooleanSupplier other) {
+        return () -> getAsBoolean() || other.getAsBoolean();
+    }
+
+    default PrimitiveCondition not() {
+        return () -> !getAsBoolean();
+    }
+
+    static PrimitiveCondition never() {
+        return () -> false;
+    }
+
+    static PrimitiveCondition always() {
+        return () -> true;
+    }
+
+    static PrimitiveCondition deadline(long time) {
+        long deadline = System.nanoTime() + MILLISECONDS.toNanos(time);
+        return () -> System.nanoTime() - deadline >= 0;
+    }
+
+    // not thread-safe, should be checked by only one loop
+    static PrimitiveCondition countdown(long n) {
+        return new PrimitiveCondition() {
+            private long remaining = n;
+
+            @Override
+            public boolean getAsBoolean() {
+                if (remaining <= 0) return true;
+                remaining--;
+                return false;
+            }
+        };
+    }
+
+    static Latch latch() {
+        return new Latch();
+    }
+
+    static PrimitiveCondition of(Condition condition) {
+        return condition instanceof PrimitiveCondition ?
+                (PrimitiveCondition) condition :
+                condition::met;
+    }
+
+    static PrimitiveCondition of(BooleanSupplier supplier) {
+        return supplier instanceof PrimitiveCondition ?
+                (PrimitiveCondition) supplier :
+                supplier::getAsBoolean;
+    }
+
+    /**
+     * Met after {@link #release()}, can be released by another thread.
+     */
+    final class Latch implements PrimitiveCondition {
+        private volatile boolean released;
+
+        private Latch() {
+        }
+
+        public void release() {
+            released = true;
+        }
+
+        @Override
+        public boolean getAsBoolean() {
+            return released;
+        }
+    }
+}
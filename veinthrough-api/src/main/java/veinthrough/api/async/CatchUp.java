@@ -0,0 +1,47 @@
+package veinthrough.api.async;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author veinthrough
+ * <p>
+ * What a fixed-rate loop does when the task overruns the period and misses ticks:
+ * <pre>
+ * 1. SKIP: 丢弃错过的ticks, 下一次在schedule中now之后的第一个tick执行, 保持固定的相位
+ * 2. BURST: 不丢弃, 立刻连续执行错过的ticks直到追上schedule, 保持执行总次数
+ * </pre>
+ * The schedule is based on System.nanoTime(), so it does not drift by the task duration
+ * or by changes of the wall clock.
+ */
+@SuppressWarnings("unused")
+public enum CatchUp {
+    SKIP {
+        @Override
+        long next(long tick, long period, long now) {
+            long next = tick + period;
+            // missed ticks
+            return now - next > 0 ? next + ((now - next) / period + 1) * period : next;
+        }
+    },
+    BURST {
+        @Override
+        long next(long tick, long period, long now) {
+            return tick + period;
+        }
+    };
+
+    /**
+     * @param tick   the tick(nanos) just executed
+     * @param period nanos
+     * @param now    System.nanoTime()
+     * @return the next tick(nanos)
+     */
+    abstract long next(long tick, long period, long now);
+
+    // sleep until the tick, or only check interruption if already behind
+    static void sleepUntil(long tick) throws InterruptedException {
+        long delay = tick - System.nanoTime();
+        if (delay > 0) TimeUnit.NANOSECONDS.sleep(delay);
+        else if (Thread.interrupted()) throw new InterruptedException();
+    }
+}
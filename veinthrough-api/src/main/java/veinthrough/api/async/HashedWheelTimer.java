@@ -0,0 +1,285 @@
+package veinthrough.api.async;
+
+import lombok.extern.slf4j.Slf4j;
+import veinthrough.api._interface.PrimitiveCondition;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static veinthrough.api.util.MethodLog.error;
+
+/**
+ * @author veinthrough
+ * <p>
+ * Hashed wheel timer: 一个ticking thread驱动所有timeout的过期.
+ * <p>---------------------------------------------------------
+ * <pre>
+ * 1. wheel: ticksPerWheel(2的幂)个bucket, 每个tick前进一个bucket
+ *   (1) newTimeout: O(1), 先放入pending queue, 由ticking thread在下一个tick放入bucket
+ *   (2) cancel: O(1), 放入cancelled queue, 由ticking thread从bucket中移除
+ *   (3) expire: 每个tick只处理当前bucket, remainingRounds > 0的timeout等待下一圈
+ * 2. 精度: tickDuration, timeout最多延迟一个tick
+ * 3. 过期的task提交到executor执行, 默认在ticking thread中执行, 所以task应该很快完成
+ * 4. deadline(time): 过期时由ticking thread设置标志, Condition只读取标志, 不需要每次调用System.currentTimeMillis(),
+ *   返回的Timeout在loop提前终止时应该cancel, 否则留在wheel中直到过期
+ * 5. pendingTimeouts(): 没有过期也没有cancel的timeout数量
+ * </pre>
+ */
+@Slf4j
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class HashedWheelTimer {
+    private static final long DEFAULT_TICK_DURATION = 10;
+    private static final int DEFAULT_TICKS_PER_WHEEL = 512;
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+    private final long tickDuration;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Executor executor;
+    private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final long startTime = System.nanoTime();
+    private final Thread worker;
+    private volatile boolean stopped;
+    // only accessed by the ticking thread
+    private long tick;
+
+    /**
+     * Constructs a timer with 10ms tick and 512 buckets, expired tasks are executed in the ticking thread.
+     */
+    public HashedWheelTimer() {
+        this(Runnable::run);
+    }
+
+    /**
+     * Constructs a timer with 10ms tick and 512 buckets.
+     *
+     * @param executor executor to execute expired tasks
+     */
+    public HashedWheelTimer(Executor executor) {
+        this(DEFAULT_TICK_DURATION, MILLISECONDS, DEFAULT_TICKS_PER_WHEEL, executor);
+    }
+
+    /**
+     * @param tickDuration  duration between two ticks
+     * @param unit          time unit of tickDuration
+     * @param ticksPerWheel number of buckets, normalized to a power of two
+     * @param executor      executor to execute expired tasks
+     */
+    public HashedWheelTimer(long tickDuration, TimeUnit unit, int ticksPerWheel, Executor executor) {
+        checkArgument(tickDuration > 0, "tickDuration must be positive.");
+        checkArgument(ticksPerWheel > 0 && ticksPerWheel <= 1 << 30, "ticksPerWheel out of range.");
+        this.tickDuration = unit.toNanos(tickDuration);
+        this.wheel = new Bucket[normalizeTicksPerWheel(ticksPerWheel)];
+        for (int i = 0; i < wheel.length; i++) wheel[i] = new Bucket();
+        this.mask = wheel.length - 1;
+        this.executor = executor;
+        this.worker = new Thread(this::work, "hashed-wheel-timer-" + INSTANCES.incrementAndGet());
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    private static int normalizeTicksPerWheel(int ticksPerWheel) {
+        int normalized = 1;
+        while (normalized < ticksPerWheel) normalized <<= 1;
+        return normalized;
+    }
+
+    /**
+     * Schedules task to be executed once after delay.
+     *
+     * @param task  task to execute, null for a timeout without task
+     * @param delay delay from now
+     * @param unit  time unit of delay
+     * @return handle to cancel or check the timeout
+     */
+    public Timeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+        if (stopped) throw new IllegalStateException("Timer has been stopped.");
+        Timeout timeout = new Timeout(task, System.nanoTime() - startTime + unit.toNanos(Math.max(delay, 0)));
+        pending.incrementAndGet();
+        pendingTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * A condition met when time(ms) elapsed, only a volatile read for each met().
+     *
+     * @return the timeout registered, to be cancelled if no longer checked
+     */
+    public Timeout deadline(long time) {
+        return newTimeout(null, time, MILLISECONDS);
+    }
+
+    /**
+     * @return number of timeouts neither expired nor cancelled
+     */
+    public int pendingTimeouts() {
+        return pending.get();
+    }
+
+    /**
+     * Stops the ticking thread, pending timeouts will never expire.
+     */
+    public void stop() {
+        stopped = true;
+        worker.interrupt();
+    }
+
+    private void work() {
+        while (!stopped) {
+            if (waitForNextTick() < 0) break;
+            processCancelled();
+            transferPending();
+            wheel[(int) (tick & mask)].expire();
+            tick++;
+        }
+    }
+
+    // sleep until the start of the next tick, return the current time
+    private long waitForNextTick() {
+        long deadline = tickDuration * (tick + 1);
+        for (; ; ) {
+            long current = System.nanoTime() - startTime;
+            long sleepMillis = (deadline - current + 999999) / 1000000;
+            if (sleepMillis <= 0) return current;
+            try {
+                Thread.sleep(sleepMillis);
+            } catch (InterruptedException e) {
+                if (stopped) return -1;
+            }
+        }
+    }
+
+    private void processCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelledTimeouts.poll()) != null) {
+            if (timeout.bucket != null) timeout.bucket.remove(timeout);
+        }
+    }
+
+    private void transferPending() {
+        Timeout timeout;
+        while ((timeout = pendingTimeouts.poll()) != null) {
+            if (timeout.state == Timeout.ST_CANCELLED) continue;
+            long calculated = timeout.deadline / tickDuration;
+            timeout.remainingRounds = (calculated - tick) / wheel.length;
+            // already expired, put into the current bucket
+            wheel[(int) (Math.max(calculated, tick) & mask)].add(timeout);
+        }
+    }
+
+    /**
+     * Handle of a task scheduled by {@link HashedWheelTimer#newTimeout(Runnable, long, TimeUnit)},
+     * also a condition met when expired, as {@link HashedWheelTimer#deadline(long)}.
+     */
+    public final class Timeout implements PrimitiveCondition {
+        private static final int ST_INIT = 0;
+        private static final int ST_CANCELLED = 1;
+        private static final int ST_EXPIRED = 2;
+
+        private final Runnable task;
+        private final long deadline;
+        // not private: accessed by STATE_UPDATER
+        volatile int state = ST_INIT;
+        // only accessed by the ticking thread
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * @return false if already expired or cancelled
+         */
+        public boolean cancel() {
+            if (!STATE_UPDATER.compareAndSet(this, ST_INIT, ST_CANCELLED)) return false;
+            pending.decrementAndGet();
+            cancelledTimeouts.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state == ST_CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state == ST_EXPIRED;
+        }
+
+        // 4. met when expired
+        @Override
+        public boolean getAsBoolean() {
+            return isExpired();
+        }
+
+        private void expire() {
+            if (!STATE_UPDATER.compareAndSet(this, ST_INIT, ST_EXPIRED)) return;
+            pending.decrementAndGet();
+            if (task == null) return;
+            try {
+                executor.execute(task);
+            } catch (Exception e) {
+                error(log, e);
+            }
+        }
+    }
+
+    private static final AtomicIntegerFieldUpdater<Timeout> STATE_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+    // doubly linked list of timeouts, only accessed by the ticking thread
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void expire() {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0) {
+                    // the bucket is always reached after the deadline of its last round
+                    remove(timeout);
+                    timeout.expire();
+                } else if (timeout.isCancelled()) {
+                    remove(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.bucket != this) return;
+            if (timeout.prev != null) timeout.prev.next = timeout.next;
+            if (timeout.next != null) timeout.next.prev = timeout.prev;
+            if (timeout == head) head = timeout.next;
+            if (timeout == tail) tail = timeout.prev;
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package veinthrough.api.async;
+
+import veinthrough.api._interface.Resettable;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * @author veinthrough
+ * <p>
+ * How a sleepy loop idles after each iteration, adapted by whether the task reported work done.
+ * Stateful, one instance for one loop, reset when the loop begins.
+ * <pre>
+ * 1. fixed: always sleep(interval), the same as sleepyAtInterval
+ * 2. backoff: 没有work时interval加倍直到max, 有work时恢复到min
+ * 3. jittered: 和backoff相同, 但是在[interval/2, interval]中随机, 避免大量loop同时醒来
+ * 4. spinYieldPark: 没有work时先spin, 然后yield, 然后park(加倍直到max); 有work时立刻继续
+ * 5. InterruptedException: the same as Thread.sleep(), so the loop terminates when interrupted,
+ *   checked by every idle() even if work done, so a loop always busy can still be interrupted
+ * </pre>
+ */
+@SuppressWarnings("unused")
+public interface IntervalStrategy extends Resettable {
+    /**
+     * Idle after an iteration.
+     *
+     * @param workDone whether the task reported work done in this iteration
+     */
+    void idle(boolean workDone) throws InterruptedException;
+
+    static IntervalStrategy fixed(long interval) {
+        return new Fixed(interval);
+    }
+
+    static IntervalStrategy backoff(long minInterval, long maxInterval) {
+        return new Backoff(minInterval, maxInterval, false);
+    }
+
+    static IntervalStrategy jittered(long minInterval, long maxInterval) {
+        return new Backoff(minInterval, maxInterval, true);
+    }
+
+    static IntervalStrategy spinYieldPark(int spins, int yields, long minParkNanos, long maxParkNanos) {
+        return new SpinYieldPark(spins, yields, minParkNanos, maxParkNanos);
+    }
+
+    // spin 100 times, yield 10 times, then park from 1us to 1ms
+    static IntervalStrategy spinYieldPark() {
+        return spinYieldPark(100, 10, 1000, MILLISECONDS.toNanos(1));
+    }
+
+    final class Fixed implements IntervalStrategy {
+        private final long interval;
+
+        private Fixed(long interval) {
+            checkArgument(interval >= 0, "interval must not be negative.");
+            this.interval = interval;
+        }
+
+        @Override
+        public void idle(boolean workDone) throws InterruptedException {
+            Thread.sleep(interval);
+        }
+
+        @Override
+        public void reset() {
+        }
+    }
+
+    // exponential backoff(ms) with a cap, optionally jittered
+    final class Backoff implements IntervalStrategy {
+        private final long minInterval;
+        private final long maxInterval;
+        private final boolean jittered;
+        private long interval;
+
+        private Backoff(long minInterval, long maxInterval, boolean jittered) {
+            checkArgument(minInterval >= 0 && maxInterval >= minInterval, "invalid interval range.");
+            this.minInterval = minInterval;
+            this.maxInterval = maxInterval;
+            this.jittered = jittered;
+            this.interval = minInterval;
+        }
+
+        @Override
+        public void idle(boolean workDone) throws InterruptedException {
+            if (workDone) {
+                interval = minInterval;
+            }
+            long sleep = jittered && interval > 1 ?
+                    ThreadLocalRandom.current().nextLong(interval / 2, interval + 1) :
+                    interval;
+            if (sleep > 0) Thread.sleep(sleep);
+            else if (Thread.interrupted()) throw new InterruptedException();
+            if (!workDone) {
+                // at least 1ms to grow from 0
+                interval = Math.min(maxInterval, Math.max(interval * 2, 1));
+            }
+        }
+
+        @Override
+        public void reset() {
+            interval = minInterval;
+        }
+    }
+
+    final class SpinYieldPark implements IntervalStrategy {
+        private final int spins;
+        private final int yields;
+        private final long minParkNanos;
+        private final long maxParkNanos;
+        private int idles;
+        private long parkNanos;
+
+        private SpinYieldPark(int spins, int yields, long minParkNanos, long maxParkNanos) {
+            checkArgument(spins >= 0 && yields >= 0, "spins/yields must not be negative.");
+            checkArgument(minParkNanos > 0 && maxParkNanos >= minParkNanos, "invalid park range.");
+            this.spins = spins;
+            this.yields = yields;
+            this.minParkNanos = minParkNanos;
+            this.maxParkNanos = maxParkNanos;
+            this.parkNanos = minParkNanos;
+        }
+
+        @Override
+        public void idle(boolean workDone) throws InterruptedException {
+            if (Thread.interrupted()) throw new InterruptedException();
+            if (workDone) {
+                reset();
+                return;
+            }
+            if (idles < spins) {
+                idles++;
+            } else if (idles < spins + yields) {
+                idles++;
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(parkNanos);
+                parkNanos = Math.min(maxParkNanos, parkNanos * 2);
+                // unparked by interrupt
+                if (Thread.interrupted()) throw new InterruptedException();
+            }
+        }
+
+        @Override
+        public void reset() {
+            idles = 0;
+            parkNanos = minParkNanos;
+        }
+    }
+}
@@ -2,18 +2,40 @@ package veinthrough.api.async;
 
 import lombok.extern.slf4j.Slf4j;
 import veinthrough.api._interface.Condition;
+import veinthrough.api._interface.PrimitiveCondition;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
-import static veinthrough.api.util.MethodLog.*;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static veinthrough.api.async.LoopMetrics.TerminationReason.*;
+import static veinthrough.api.util.MethodLog.debug;
+import static veinthrough.api.util.MethodLog.error;
+import static veinthrough.api.util.MethodLog.event;
+import static veinthrough.api.util.MethodLog.warn;
 
 /**
  * @author veinthrough
  * <p>
  * 将一个Callable包装成一个循环执行的Callable, 直到condition/timeout/interrupted
  * hyper(8 functions): condition/timeout --X-- consumer
+ * fastHyper(6 functions): timeout/BooleanSupplier condition --X-- consumer
  * sleepy(16 functions): condition/timeout --X-- interval --X-- consumer
+ * sleepyAtFixedRate(8 functions): condition/timeout --X-- period/CatchUp --X-- consumer
+ * adaptive(4 functions): condition/timeout --X-- IntervalStrategy --X-- consumer
+ * scheduled(11 functions): condition/timeout --X-- interval --X-- consumer, 返回LoopHandle
+ * wheeled(8 functions): 和scheduled相同, tick/timeout注册到HashedWheelTimer
+ * monitored(4 functions): condition/timeout --X-- interval --X-- consumer, 记录到LoopMetrics
+ * streamed(4 functions): condition/timeout --X-- interval, 每次的result发布到返回的Stream
+ * batched(4 functions): condition/timeout --X-- interval --X-- maxBatch/maxLatency --X-- sink
  * <p>---------------------------------------------------------
  * <pre>
  * 1. Terminate a Runnable/Callable:
@@ -21,12 +43,29 @@ import static veinthrough.api.util.MethodLog.*;
  *   (2) timeout
  *   (3) interrupt
  *   (4) endless loop: 不终止
+ *   (5) condition + timeout: hyper()/sleepy()保持原有的语义, timeout并且condition满足才终止;
+ *   sleepyAtFixedRate()/scheduled()/wheeled()/monitored()/batched(), 任意一个先满足即终止
  * 2. 循环方式:
  *   (1) No sleep() in while, 使用!Thread.interrupted()
+ *   fastHyper(): 每次循环不打印log(不需要MethodLog遍历stack), 使用primitive boolean的condition, 没有allocation
  *   (2) With sleep(), no need to use !Thread.interrupted(),
  *   as sleep will clear interrupted sign
+ *   adaptive(): workDone判断result是否有work done, 由IntervalStrategy决定idle多久(backoff/jittered/spin-yield-park)
+ *   sleepyAtFixedRate(): sleepyAtInterval()是fixed delay, period会因task的执行时间漂移;
+ *   fixed rate根据System.nanoTime()计算下一次tick, CatchUp决定错过的ticks是skip还是burst
  *   (3) With sleep() and re-interrupt() if InterruptedException,
  *   try必须放在while内, 如果try放在while外, 会立刻跳出, !Thread.interrupted()就没有意义
+ *   (4) scheduled(): 和sleepy()语义相同, 但是没有while/sleep(), 每次tick提交到共享的ScheduledExecutorService,
+ *   等待interval时不占用线程, 通过返回的LoopHandle取消(代替interrupt), LoopHandle完成时包含最后的result
+ *   (5) wheeled(): 和scheduled()相同, 但是tick/timeout注册到HashedWheelTimer, 注册是O(1),
+ *   一个ticking thread驱动所有的interval/timeout, timeout不需要每次检查System.currentTimeMillis(),
+ *   loop由condition/exception/cancel提前终止时cancel timeout, 不会留在wheel中直到过期
+ *   (6) monitored(): interval <= 0时和hyper()相同, 否则和sleepyAtInterval()相同, 每次循环不打印log,
+ *   记录iterations/task latency/work和sleep time/overruns(task latency > interval)/termination reason到LoopMetrics
+ *   (7) streamed(): loop在executor中执行, 每次的result发布到bounded queue, 通过返回的Stream逐个消费(backpressure),
+ *   而不是只返回最后一个result, Stream.close()终止loop
+ *   (8) batched(): 每次的result放入可重用的buffer, 达到maxBatch/maxLatency或者loop终止时flush到sink(Consumer<List<T>>),
+ *   将大量小的写入合并为少量大的写入, sink抛出的exception终止loop并由run()抛出, 写入失败的batch不会被清空也不会重试
  * 3. 是否有interval
  * 4. 循环完成是否执行的动作consumer
  *   (1) 没有consumer就返回Callable<T>, 因为要返回执行结果
@@ -39,36 +78,38 @@ public class LoopCallable extends LoopTask {
     // 2.(1) No sleep() in while, 使用!Thread.interrupted()
     // Terminate: condition/interrupted
     public static <T> Runnable hyper(Callable<T> task, Condition condition, Consumer<T> consumer) {
+        PrimitiveCondition terminated = PrimitiveCondition.of(condition);
         return () -> {
             T result = null;
-            log.debug(methodLog("Loop begin"));
+            debug(log, "Loop begin");
             // [?] 返回Runnable就需要处理Exception
             // [?] 返回Callable就不需要处理Exception
             try {
-                while (!condition.met() && !Thread.interrupted()) {
-                    log.debug(methodLog("Loop ing ..."));
+                while (!terminated.getAsBoolean() && !Thread.interrupted()) {
+                    debug(log, "Loop ing ...");
                     result = task.call();
                 }
             } catch (Exception e) {
-                log.error(exceptionLog(e));
+                error(log, e);
             }
             // consume result
             consumer.accept(result);
-            log.debug(methodLog("Loop end"));
+            debug(log, "Loop end");
         };
     }
 
     // 2.(1) No sleep() in while, 使用!Thread.interrupted()
     // Terminate: condition/interrupted
     public static <T> Callable<T> hyper(Callable<T> task, Condition condition) {
+        PrimitiveCondition terminated = PrimitiveCondition.of(condition);
         return () -> {
             T result = null;
-            log.debug(methodLog("Loop begin"));
-            while (!condition.met() && !Thread.interrupted()) {
-                log.debug(methodLog("Loop ing ..."));
+            debug(log, "Loop begin");
+            while (!terminated.getAsBoolean() && !Thread.interrupted()) {
+                debug(log, "Loop ing ...");
                 result = task.call();
             }
-            log.debug(methodLog("Loop end"));
+            debug(log, "Loop end");
             return result;
         };
     }
@@ -86,18 +127,18 @@ public class LoopCallable extends LoopTask {
     }
 
     // 2.(1)
-    // Terminate: condition/timeout/interrupted
+    // Terminate: timeout and condition(both met)/interrupted
     public static <T> Runnable hyper(Callable<T> task, Condition condition,
                                      long time,
                                      Consumer<T> consumer) {
-        return hyper(task, timeoutOrCondition(condition, time), consumer);
+        return hyper(task, timeoutAndCondition(condition, time), consumer);
     }
 
     // 2.(1)
-    // Terminate: condition/timeout/interrupted
+    // Terminate: timeout and condition(both met)/interrupted
     public static <T> Callable<T> hyper(Callable<T> task, Condition condition,
                                         long time) {
-        return hyper(task, timeoutOrCondition(condition, time));
+        return hyper(task, timeoutAndCondition(condition, time));
     }
 
     // 2.(1) No sleep() in while, 使用!Thread.interrupted()
@@ -112,29 +153,87 @@ public class LoopCallable extends LoopTask {
         return hyper(task, NEVER);
     }
 
+    // 2.(1) fast: the same as hyper(), no logging/allocation in each iteration
+    // Terminate: condition/interrupted
+    public static <T> Runnable fastHyper(Callable<T> task, BooleanSupplier condition, Consumer<T> consumer) {
+        return () -> {
+            T result = null;
+            debug(log, "Loop begin");
+            try {
+                while (!condition.getAsBoolean() && !Thread.interrupted()) {
+                    result = task.call();
+                }
+            } catch (Exception e) {
+                error(log, e);
+            }
+            // consume result
+            consumer.accept(result);
+            debug(log, "Loop end");
+        };
+    }
+
+    // 2.(1) fast: the same as hyper(), no logging/allocation in each iteration
+    // Terminate: condition/interrupted
+    public static <T> Callable<T> fastHyper(Callable<T> task, BooleanSupplier condition) {
+        return () -> {
+            T result = null;
+            debug(log, "Loop begin");
+            while (!condition.getAsBoolean() && !Thread.interrupted()) {
+                result = task.call();
+            }
+            debug(log, "Loop end");
+            return result;
+        };
+    }
+
+    // 2.(1) fast
+    // Terminate: timeout/interrupted
+    public static <T> Runnable fastHyper(Callable<T> task, long time, Consumer<T> consumer) {
+        return fastHyper(task, timeout(time), consumer);
+    }
+
+    // 2.(1) fast
+    // Terminate: timeout/interrupted
+    public static <T> Callable<T> fastHyper(Callable<T> task, long time) {
+        return fastHyper(task, timeout(time));
+    }
+
+    // 2.(1) fast
+    // Terminate: interrupted
+    public static <T> Runnable fastHyper(Callable<T> task, Consumer<T> consumer) {
+        return fastHyper(task, NEVER, consumer);
+    }
+
+    // 2.(1) fast
+    // Terminate: interrupted
+    public static <T> Callable<T> fastHyper(Callable<T> task) {
+        return fastHyper(task, NEVER);
+    }
+
     // 2.(2) With sleep(), no need to use !Thread.interrupted()
     // terminate: condition/interrupted
     public static <T> Runnable sleepyAtInterval(Callable<T> task, Condition condition,
                                                 long interval,
                                                 Consumer<T> consumer) {
+        PrimitiveCondition terminated = PrimitiveCondition.of(condition);
         return () -> {
             T result = null;
             try {
-                log.debug(methodLog("Loop begin"));
+                debug(log, "Loop begin");
                 // no need to use !Thread.interrupted(), as sleep will clear interrupted sign
 //                while (!condition.met() && !Thread.interrupted()) {
-                while (!condition.met()) {
-                    log.debug(methodLog("Loop ing ..."));
+                while (!terminated.getAsBoolean()) {
+                    debug(log, "Loop ing ...");
                     result = task.call();
                     Thread.sleep(interval);
                 }
                 // consume result
                 consumer.accept(result);
-                log.debug(methodLog("Loop end"));
+                debug(log, "Loop end");
             } catch (InterruptedException e) {
-                log.warn(exceptionLog(e));
+                warn(log, e);
             } catch (Exception e) {
-                log.error(exceptionLog(e));
+                error(log, e);
             }
         };
     }
@@ -143,20 +242,21 @@ public class LoopCallable extends LoopTask {
     // terminate: condition/interrupted
     public static <T> Callable<T> sleepyAtInterval(Callable<T> task, Condition condition,
                                                    long interval) {
+        PrimitiveCondition terminated = PrimitiveCondition.of(condition);
         return () -> {
             T result = null;
             try {
-                log.debug(methodLog("Loop begin"));
+                debug(log, "Loop begin");
                 // no need to use !Thread.interrupted(), as sleep will clear interrupted sign
 //                while (!condition.met() && !Thread.interrupted()) {
-                while (!condition.met()) {
-                    log.debug(methodLog("Loop ing ..."));
+                while (!terminated.getAsBoolean()) {
+                    debug(log, "Loop ing ...");
                     result = task.call();
                     Thread.sleep(interval);
                 }
-                log.debug(methodLog("Loop end"));
+                debug(log, "Loop end");
             } catch (InterruptedException e) {
-                log.warn(exceptionLog(e));
+                warn(log, e);
             }
             return result;
         };
@@ -202,33 +302,33 @@ public class LoopCallable extends LoopTask {
     }
 
     // 2.(2)
-    // terminate: terminate/timeout/interrupted
+    // terminate: timeout and condition(both met)/interrupted
     public static <T> Runnable sleepyAtInterval(Callable<T> task, Condition condition,
                                                 long time, long interval,
                                                 Consumer<T> consumer) {
-        return sleepyAtInterval(task, timeoutOrCondition(condition, time), interval, consumer);
+        return sleepyAtInterval(task, timeoutAndCondition(condition, time), interval, consumer);
     }
 
     // 2.(2)
-    // terminate: terminate/timeout/interrupted
+    // terminate: timeout and condition(both met)/interrupted
     public static <T> Callable<T> sleepyAtInterval(Callable<T> task, Condition condition,
                                                    long time, long interval) {
-        return sleepyAtInterval(task, timeoutOrCondition(condition, time), interval);
+        return sleepyAtInterval(task, timeoutAndCondition(condition, time), interval);
     }
 
     // 2.(2)
-    // terminate: terminate/timeout/interrupted
+    // terminate: timeout and condition(both met)/interrupted
     public static <T> Runnable sleepy(Callable<T> task, Condition condition,
                                       long time,
                                       Consumer<T> consumer) {
-        return sleepyAtInterval(task, timeoutOrCondition(condition, time), DEFAULT_INTERVAL, consumer);
+        return sleepyAtInterval(task, timeoutAndCondition(condition, time), DEFAULT_INTERVAL, consumer);
     }
 
     // 2.(2)
-    // terminate: terminate/timeout/interrupted
+    // terminate: timeout and condition(both met)/interrupted
     public static <T> Callable<T> sleepy(Callable<T> task, Condition condition,
                                          long time) {
-        return sleepyAtInterval(task, timeoutOrCondition(condition, time), DEFAULT_INTERVAL);
+        return sleepyAtInterval(task, timeoutAndCondition(condition, time), DEFAULT_INTERVAL);
     }
 
     // 2.(2)
@@ -255,33 +355,505 @@ public class LoopCallable extends LoopTask {
         return sleepyAtInterval(task, NEVER, DEFAULT_INTERVAL);
     }
 
+    // 2.(2) fixed rate: the next tick is scheduled by System.nanoTime() from the first one,
+    // so the period does not drift by the task duration, catchUp decides what to do with missed ticks
+    // terminate: condition/interrupted
+    public static <T> Runnable sleepyAtFixedRate(Callable<T> task, Condition condition,
+                                                 long period, CatchUp catchUp,
+                                                 Consumer<T> consumer) {
+        Callable<T> loop = sleepyAtFixedRate(task, condition, period, catchUp);
+        return () -> {
+            try {
+                // consume result
+                consumer.accept(loop.call());
+            } catch (Exception e) {
+                error(log, e);
+            }
+        };
+    }
+
+    // 2.(2) fixed rate
+    // terminate: condition/interrupted
+    public static <T> Callable<T> sleepyAtFixedRate(Callable<T> task, Condition condition,
+                                                    long period, CatchUp catchUp) {
+        checkArgument(period > 0, "period must be positive.");
+        PrimitiveCondition terminated = PrimitiveCondition.of(condition);
+        long periodNanos = MILLISECONDS.toNanos(period);
+        return () -> {
+            T result = null;
+            try {
+                debug(log, "Loop begin");
+                long tick = System.nanoTime();
+                while (!terminated.getAsBoolean()) {
+                    debug(log, "Loop ing ...");
+                    result = task.call();
+                    tick = catchUp.next(tick, periodNanos, System.nanoTime());
+                    CatchUp.sleepUntil(tick);
+                }
+                debug(log, "Loop end");
+            } catch (InterruptedException e) {
+                warn(log, e);
+            }
+            return result;
+        };
+    }
+
+    // 2.(2) fixed rate, skip missed ticks
+    // terminate: condition/interrupted
+    public static <T> Callable<T> sleepyAtFixedRate(Callable<T> task, Condition condition,
+                                                    long period) {
+        return sleepyAtFixedRate(task, condition, period, CatchUp.SKIP);
+    }
+
+    // 2.(2) fixed rate
+    // terminate: timeout/interrupted
+    public static <T> Runnable sleepyAtFixedRate(Callable<T> task,
+                                                 long time, long period, CatchUp catchUp,
+                                                 Consumer<T> consumer) {
+        return sleepyAtFixedRate(task, timeout(time), period, catchUp, consumer);
+    }
+
+    // 2.(2) fixed rate
+    // terminate: timeout/interrupted
+    public static <T> Callable<T> sleepyAtFixedRate(Callable<T> task,
+                                                    long time, long period, CatchUp catchUp) {
+        return sleepyAtFixedRate(task, timeout(time), period, catchUp);
+    }
+
+    // 2.(2) fixed rate
+    // terminate: condition or timeout(whichever first)/interrupted
+    public static <T> Callable<T> sleepyAtFixedRate(Callable<T> task, Condition condition,
+                                                    long time, long period, CatchUp catchUp) {
+        return sleepyAtFixedRate(task, timeoutOrCondition(condition, time), period, catchUp);
+    }
+
+    // 2.(2) fixed rate
+    // terminate: interrupted
+    public static <T> Runnable sleepyAtFixedRate(Callable<T> task, long period, CatchUp catchUp,
+                                                 Consumer<T> consumer) {
+        return sleepyAtFixedRate(task, NEVER, period, catchUp, consumer);
+    }
+
+    // 2.(2) adaptive: workDone judges the result, strategy idles after each iteration
+    // terminate: condition/interrupted
+    public static <T> Runnable adaptive(Callable<T> task, Predicate<? super T> workDone,
+                                        Condition condition,
+                                        IntervalStrategy strategy,
+                                        Consumer<T> consumer) {
+        Callable<T> loop = adaptive(task, workDone, condition, strategy);
+        return () -> {
+            try {
+                // consume result
+                consumer.accept(loop.call());
+            } catch (Exception e) {
+                error(log, e);
+            }
+        };
+    }
+
+    // 2.(2) adaptive: workDone judges the result, strategy idles after each iteration
+    // terminate: condition/interrupted
+    public static <T> Callable<T> adaptive(Callable<T> task, Predicate<? super T> workDone,
+                                           Condition condition,
+                                           IntervalStrategy strategy) {
+        PrimitiveCondition terminated = PrimitiveCondition.of(condition);
+        return () -> {
+            T result = null;
+            try {
+                debug(log, "Loop begin");
+                strategy.reset();
+                // no need to use !Thread.interrupted(), as strategy will throw InterruptedException
+                while (!terminated.getAsBoolean()) {
+                    debug(log, "Loop ing ...");
+                    result = task.call();
+                    strategy.idle(workDone.test(result));
+                }
+                debug(log, "Loop end");
+            } catch (InterruptedException e) {
+                warn(log, e);
+            }
+            return result;
+        };
+    }
+
+    // 2.(2) adaptive
+    // terminate: timeout/interrupted
+    public static <T> Runnable adaptive(Callable<T> task, Predicate<? super T> workDone,
+                                        long time,
+                                        IntervalStrategy strategy,
+                                        Consumer<T> consumer) {
+        return adaptive(task, workDone, timeout(time), strategy, consumer);
+    }
+
+    // 2.(2) adaptive
+    // terminate: timeout/interrupted
+    public static <T> Callable<T> adaptive(Callable<T> task, Predicate<? super T> workDone,
+                                           long time,
+                                           IntervalStrategy strategy) {
+        return adaptive(task, workDone, timeout(time), strategy);
+    }
+
+    // 2.(6) monitored: hyper()(interval <= 0)/sleepyAtInterval()(interval > 0), records metrics of each iteration
+    // terminate: condition/timeout/interrupted
+    public static <T> Runnable monitored(LoopMetrics metrics, Callable<T> task, Condition condition,
+                                         long time, long interval,
+                                         Consumer<T> consumer) {
+        Callable<T> loop = monitored(metrics, task, condition, time, interval);
+        return () -> {
+            try {
+                // consume result
+                consumer.accept(loop.call());
+            } catch (Exception e) {
+                error(log, e);
+            }
+        };
+    }
+
+    // 2.(6) monitored
+    // terminate: condition or timeout(whichever first)/interrupted
+    public static <T> Callable<T> monitored(LoopMetrics metrics, Callable<T> task, Condition condition,
+                                            long time, long interval) {
+        return monitored(metrics, task, timeoutOrCondition(condition, time), interval);
+    }
+
+    // 2.(6) monitored
+    // terminate: condition/interrupted
+    public static <T> Callable<T> monitored(LoopMetrics metrics, Callable<T> task, Condition condition,
+                                            long interval) {
+        return monitored(metrics, task, timeoutOrCondition(PrimitiveCondition.of(condition), NEVER), interval);
+    }
+
+    // 2.(6) monitored
+    // terminate: timeout/interrupted
+    public static <T> Callable<T> monitored(LoopMetrics metrics, Callable<T> task, long time,
+                                            long interval) {
+        return monitored(metrics, task, timeoutOrCondition(NEVER, timeout(time)), interval);
+    }
+
+    // the same termination rule as other loops, TimeoutOrCondition tells the reason
+    private static <T> Callable<T> monitored(LoopMetrics metrics, Callable<T> task,
+                                             TimeoutOrCondition terminated,
+                                             long interval) {
+        long intervalNanos = MILLISECONDS.toNanos(interval);
+        return () -> {
+            T result = null;
+            debug(log, "Loop begin", "loop", metrics.getName());
+            try {
+                while (true) {
+                    if (terminated.getAsBoolean()) {
+                        metrics.recordTermination(terminated.timedOut() ? TIMEOUT : CONDITION);
+                        break;
+                    }
+                    // hyper: no sleep() to throw InterruptedException
+                    if (interval <= 0 && Thread.interrupted()) throw new InterruptedException();
+                    long start = System.nanoTime();
+                    result = task.call();
+                    long end = System.nanoTime();
+                    metrics.recordIteration(end - start);
+                    if (interval > 0) {
+                        if (end - start > intervalNanos) metrics.recordOverrun();
+                        try {
+                            Thread.sleep(interval);
+                        } finally {
+                            metrics.recordSleep(System.nanoTime() - end);
+                        }
+                    }
+                }
+                // metrics formatted only if debug is enabled
+                debug(log, () -> "Loop end, " + metrics);
+            } catch (InterruptedException e) {
+                metrics.recordTermination(INTERRUPT);
+                warn(log, e, metrics.getName());
+            } catch (Exception e) {
+                metrics.recordTermination(EXCEPTION);
+                throw e;
+            }
+            return result;
+        };
+    }
+
+    // 2.(7) streamed: hyper()(interval <= 0)/sleepyAtInterval()(interval > 0) executed in executor,
+    // each result is published to the returned stream, the loop blocks when capacity results are not consumed
+    // terminate: condition/interrupted/stream closed
+    public static <T> Stream<T> streamed(Executor executor, Callable<T> task, Condition condition,
+                                         long interval, int capacity) {
+        return StreamedLoop.start(executor, task, condition, interval, capacity);
+    }
+
+    // 2.(7) streamed
+    // terminate: condition/interrupted/stream closed
+    public static <T> Stream<T> streamed(Callable<T> task, Condition condition,
+                                         long interval, int capacity) {
+        return StreamedLoop.start(defaultStreamer(), task, condition, interval, capacity);
+    }
+
+    // 2.(7) streamed
+    // terminate: timeout/interrupted/stream closed
+    public static <T> Stream<T> streamed(Callable<T> task, long time,
+                                         long interval, int capacity) {
+        return StreamedLoop.start(defaultStreamer(), task, timeout(time), interval, capacity);
+    }
+
+    // 2.(7) streamed
+    // terminate: interrupted/stream closed
+    public static <T> Stream<T> streamed(Callable<T> task, long interval, int capacity) {
+        return StreamedLoop.start(defaultStreamer(), task, NEVER, interval, capacity);
+    }
+
+    // 2.(8) batched: hyper()(interval <= 0)/sleepyAtInterval()(interval > 0),
+    // results are collected into a reusable buffer and flushed to sink by maxBatch/maxLatency/termination
+    // sink must not keep the list, as it is cleared after flushed
+    // a sink exception ends the loop and is thrown by run(), the failed batch is left in the list
+    // terminate: condition/interrupted/sink exception
+    public static <T> Runnable batched(Callable<T> task, Condition condition,
+                                       long interval,
+                                       int maxBatch, long maxLatency,
+                                       Consumer<List<T>> sink) {
+        checkArgument(maxBatch > 0, "maxBatch must be positive.");
+        PrimitiveCondition terminated = PrimitiveCondition.of(condition);
+        long maxLatencyNanos = MILLISECONDS.toNanos(maxLatency);
+        return () -> {
+            List<T> buffer = new ArrayList<>(maxBatch);
+            long batchBegin = 0;
+            try {
+                debug(log, "Loop begin");
+                while (!terminated.getAsBoolean()) {
+                    T result;
+                    try {
+                        result = task.call();
+                    } catch (InterruptedException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        // the task failed, the results collected are still flushed
+                        error(log, e);
+                        break;
+                    }
+                    if (buffer.isEmpty()) batchBegin = System.nanoTime();
+                    buffer.add(result);
+                    if (buffer.size() >= maxBatch) flush(buffer, sink);
+                    if (interval > 0) Thread.sleep(interval);
+                    else if (Thread.interrupted()) throw new InterruptedException();
+                    // checked after sleep, so a result waits at most maxLatency + interval
+                    if (!buffer.isEmpty() && System.nanoTime() - batchBegin >= maxLatencyNanos) flush(buffer, sink);
+                }
+                debug(log, "Loop end");
+            } catch (InterruptedException e) {
+                warn(log, e);
+            }
+            // termination, not reached by a sink exception
+            flush(buffer, sink);
+        };
+    }
+
+    // 2.(8) batched
+    // terminate: timeout/interrupted
+    public static <T> Runnable batched(Callable<T> task, long time,
+                                       long interval,
+                                       int maxBatch, long maxLatency,
+                                       Consumer<List<T>> sink) {
+        return batched(task, timeout(time), interval, maxBatch, maxLatency, sink);
+    }
+
+    // 2.(8) batched
+    // terminate: condition or timeout(whichever first)/interrupted
+    public static <T> Runnable batched(Callable<T> task, Condition condition,
+                                       long time, long interval,
+                                       int maxBatch, long maxLatency,
+                                       Consumer<List<T>> sink) {
+        return batched(task, timeoutOrCondition(condition, time), interval, maxBatch, maxLatency, sink);
+    }
+
+    // 2.(8) batched
+    // terminate: interrupted
+    public static <T> Runnable batched(Callable<T> task, long interval,
+                                       int maxBatch, long maxLatency,
+                                       Consumer<List<T>> sink) {
+        return batched(task, NEVER, interval, maxBatch, maxLatency, sink);
+    }
+
+    // cleared only after the sink succeeds, a sink exception ends the loop
+    private static <T> void flush(List<T> buffer, Consumer<List<T>> sink) {
+        if (buffer.isEmpty()) return;
+        try {
+            sink.accept(buffer);
+        } catch (RuntimeException e) {
+            event("sink failed").kv("batch", buffer.size()).error(log);
+            throw e;
+        }
+        buffer.clear();
+    }
+
+    // 2.(4) Without thread, ticks on scheduler
+    // terminate: condition/cancelled
+    public static <T> LoopHandle<T> scheduledAtInterval(ScheduledExecutorService scheduler,
+                                                        Callable<T> task, Condition condition,
+                                                        long interval,
+                                                        Consumer<T> consumer) {
+        return ScheduledLoop.start(scheduler, task, condition, interval, consumer);
+    }
+
+    // 2.(4)
+    // terminate: condition/cancelled
+    public static <T> LoopHandle<T> scheduledAtInterval(Callable<T> task, Condition condition,
+                                                        long interval,
+                                                        Consumer<T> consumer) {
+        return scheduledAtInterval(defaultScheduler(), task, condition, interval, consumer);
+    }
+
+    // 2.(4)
+    // terminate: condition/cancelled
+    public static <T> LoopHandle<T> scheduledAtInterval(Callable<T> task, Condition condition,
+                                                        long interval) {
+        return scheduledAtInterval(defaultScheduler(), task, condition, interval, result -> {});
+    }
+
+    // 2.(4)
+    // terminate: timeout/cancelled
+    public static <T> LoopHandle<T> scheduledAtInterval(Callable<T> task,
+                                                        long time, long interval,
+                                                        Consumer<T> consumer) {
+        return scheduledAtInterval(defaultScheduler(), task, timeout(time), interval, consumer);
+    }
+
+    // 2.(4)
+    // terminate: timeout/cancelled
+    public static <T> LoopHandle<T> scheduledAtInterval(Callable<T> task,
+                                                        long time, long interval) {
+        return scheduledAtInterval(defaultScheduler(), task, timeout(time), interval, result -> {});
+    }
+
+    // 2.(4)
+    // terminate: condition or timeout(whichever first)/cancelled
+    public static <T> LoopHandle<T> scheduledAtInterval(Callable<T> task, Condition condition,
+                                                        long time, long interval,
+                                                        Consumer<T> consumer) {
+        return scheduledAtInterval(defaultScheduler(), task, timeoutOrCondition(condition, time), interval, consumer);
+    }
+
+    // 2.(4)
+    // terminate: cancelled
+    public static <T> LoopHandle<T> scheduledAtInterval(Callable<T> task, long interval, Consumer<T> consumer) {
+        return scheduledAtInterval(defaultScheduler(), task, NEVER, interval, consumer);
+    }
+
+    // 2.(4)
+    // terminate: cancelled
+    public static <T> LoopHandle<T> scheduledAtInterval(Callable<T> task, long interval) {
+        return scheduledAtInterval(defaultScheduler(), task, NEVER, interval, result -> {});
+    }
+
+    // 2.(4)
+    // terminate: condition/cancelled
+    public static <T> LoopHandle<T> scheduled(Callable<T> task, Condition condition, Consumer<T> consumer) {
+        return scheduledAtInterval(defaultScheduler(), task, condition, DEFAULT_INTERVAL, consumer);
+    }
+
+    // 2.(4)
+    // terminate: timeout/cancelled
+    public static <T> LoopHandle<T> scheduled(Callable<T> task, long time, Consumer<T> consumer) {
+        return scheduledAtInterval(defaultScheduler(), task, timeout(time), DEFAULT_INTERVAL, consumer);
+    }
+
+    // 2.(4)
+    // terminate: cancelled
+    public static <T> LoopHandle<T> scheduled(Callable<T> task) {
+        return scheduledAtInterval(defaultScheduler(), task, NEVER, DEFAULT_INTERVAL, result -> {});
+    }
+
+    // 2.(5) Without thread, ticks on hashed wheel timer
+    // terminate: condition/cancelled
+    public static <T> LoopHandle<T> wheeledAtInterval(HashedWheelTimer timer,
+                                                      Callable<T> task, Condition condition,
+                                                      long interval,
+                                                      Consumer<T> consumer) {
+        return ScheduledLoop.start(timer, task, condition, interval, consumer);
+    }
+
+    // 2.(5)
+    // terminate: timeout/cancelled
+    public static <T> LoopHandle<T> wheeledAtInterval(HashedWheelTimer timer,
+                                                      Callable<T> task,
+                                                      long time, long interval,
+                                                      Consumer<T> consumer) {
+        HashedWheelTimer.Timeout deadline = timeout(timer, time);
+        return cancelOnEnd(wheeledAtInterval(timer, task, deadline, interval, consumer), deadline);
+    }
+
+    // 2.(5)
+    // terminate: condition or timeout(whichever first)/cancelled
+    public static <T> LoopHandle<T> wheeledAtInterval(HashedWheelTimer timer,
+                                                      Callable<T> task, Condition condition,
+                                                      long time, long interval,
+                                                      Consumer<T> consumer) {
+        HashedWheelTimer.Timeout deadline = timeout(timer, time);
+        return cancelOnEnd(wheeledAtInterval(timer, task,
+                timeoutOrCondition(PrimitiveCondition.of(condition), deadline), interval, consumer), deadline);
+    }
+
+    // 2.(5)
+    // terminate: condition/cancelled
+    public static <T> LoopHandle<T> wheeledAtInterval(Callable<T> task, Condition condition,
+                                                      long interval,
+                                                      Consumer<T> consumer) {
+        return wheeledAtInterval(defaultTimer(), task, condition, interval, consumer);
+    }
+
+    // 2.(5)
+    // terminate: timeout/cancelled
+    public static <T> LoopHandle<T> wheeledAtInterval(Callable<T> task,
+                                                      long time, long interval,
+                                                      Consumer<T> consumer) {
+        return wheeledAtInterval(defaultTimer(), task, time, interval, consumer);
+    }
+
+    // 2.(5)
+    // terminate: condition or timeout(whichever first)/cancelled
+    public static <T> LoopHandle<T> wheeledAtInterval(Callable<T> task, Condition condition,
+                                                      long time, long interval,
+                                                      Consumer<T> consumer) {
+        return wheeledAtInterval(defaultTimer(), task, condition, time, interval, consumer);
+    }
+
+    // 2.(5)
+    // terminate: cancelled
+    public static <T> LoopHandle<T> wheeledAtInterval(Callable<T> task, long interval) {
+        return wheeledAtInterval(defaultTimer(), task, NEVER, interval, result -> {});
+    }
+
+    // 2.(5)
+    // terminate: timeout/cancelled
+    public static <T> LoopHandle<T> wheeled(Callable<T> task, long time, Consumer<T> consumer) {
+        return wheeledAtInterval(defaultTimer(), task, time, DEFAULT_INTERVAL, consumer);
+    }
+
     // 3. With sleep() and re-interrupt() if InterruptedException
     @Deprecated
     public static <T> Runnable sleepyAndInterruptedAtInterval(
             Callable<T> task, Condition condition,
             long interval,
             Consumer<T> consumer) {
+        PrimitiveCondition terminated = PrimitiveCondition.of(condition);
         return () -> {
             T result = null;
-            log.debug(methodLog("Loop begin"));
+            debug(log, "Loop begin");
             try {
-                while (!condition.met() && !Thread.interrupted()) {
-                    log.debug(methodLog("Loop ing ..."));
+                while (!terminated.getAsBoolean() && !Thread.interrupted()) {
+                    debug(log, "Loop ing ...");
                     result = task.call();
                     // try必须放在while内, 如果try放在while外, 会立刻跳出, !Thread.interrupted()就没有意义
                     try {
                         Thread.sleep(interval);
                     } catch (InterruptedException e) {
-                        log.warn(exceptionLog(e));
+                        warn(log, e);
                         Thread.currentThread().interrupt();
                     }
                 }
             } catch (Exception e) {
-                log.error(exceptionLog(e));
+                error(log, e);
             }
             // consume result
             consumer.accept(result);
-            log.debug(methodLog("Loop end"));
+            debug(log, "Loop end");
         };
     }
 
@@ -290,21 +862,22 @@ public class LoopCallable extends LoopTask {
     public static <T> Callable<T> sleepyAndInterruptedAtInterval(
             Callable<T> task, Condition condition,
             long interval) {
+        PrimitiveCondition terminated = PrimitiveCondition.of(condition);
         return () -> {
             T result = null;
-            log.debug(methodLog("Loop begin"));
-            while (!condition.met() && !Thread.interrupted()) {
-                log.debug(methodLog("Loop ing ..."));
+            debug(log, "Loop begin");
+            while (!terminated.getAsBoolean() && !Thread.interrupted()) {
+                debug(log, "Loop ing ...");
                 result = task.call();
                 // try必须放在while内, 如果try放在while外, 会立刻跳出, !Thread.interrupted()就没有意义
                 try {
                     Thread.sleep(interval);
                 } catch (InterruptedException e) {
-                    log.warn(exceptionLog(e));
+                    warn(log, e);
                     Thread.currentThread().interrupt();
                 }
             }
-            log.debug(methodLog("Loop end"));
+            debug(log, "Loop end");
             return result;
         };
     }
@@ -0,0 +1,36 @@
+package veinthrough.api.async;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * @author veinthrough
+ * <p>
+ * A cancellable handle of a scheduled loop, 循环不再占用一个线程, 而是每次tick提交到共享的scheduler.
+ * <pre>
+ * 1. complete: condition/timeout met, with the last result(Runnable loop: null)
+ * 2. completeExceptionally: task throws exception
+ * 3. cancel: cancel the pending tick, finish/consumer will not be executed,
+ *   a running tick is not interrupted
+ * </pre>
+ */
+public class LoopHandle<T> extends CompletableFuture<T> {
+    // canceller of the pending tick of the loop
+    private volatile Runnable pending;
+
+    LoopHandle() {
+    }
+
+    void setPending(Runnable pending) {
+        this.pending = pending;
+        // cancelled between two ticks
+        if (isDone()) pending.run();
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        Runnable tick = pending;
+        if (tick != null) tick.run();
+        return cancelled;
+    }
+}
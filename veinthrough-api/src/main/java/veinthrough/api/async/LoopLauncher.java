@@ -0,0 +1,115 @@
+package veinthrough.api.async;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static veinthrough.api.util.MethodLog.debug;
+import static veinthrough.api.util.MethodLog.warn;
+
+/**
+ * @author veinthrough
+ * <p>
+ * Launch the Runnable/Callable products of LoopRunnable/LoopCallable, one thread per loop:
+ * <pre>
+ * 1. virtual thread per loop, if JDK supports(Executors.newVirtualThreadPerTaskExecutor, 21+)
+ *   sleep()阻塞的是virtual thread, 不占用platform thread
+ * 2. fallback: platform thread per loop(cached thread pool), such as Java 8
+ * 3. 编译目标是Java 8, 所以通过reflection查找newVirtualThreadPerTaskExecutor
+ * 4. cancel: Future.cancel(true)/shutdownNow() interrupt the loops, the same as interrupting a thread
+ * </pre>
+ */
+@Slf4j
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class LoopLauncher implements AutoCloseable {
+    private static final Method NEW_VIRTUAL_EXECUTOR = findVirtualExecutorFactory();
+
+    private final ExecutorService executor;
+    private final boolean virtual;
+
+    private LoopLauncher(ExecutorService executor, boolean virtual) {
+        this.executor = executor;
+        this.virtual = virtual;
+    }
+
+    /**
+     * Virtual thread per loop if supported, otherwise platform thread per loop.
+     */
+    public static LoopLauncher create() {
+        ExecutorService executor = newVirtualExecutor();
+        return executor != null ?
+                new LoopLauncher(executor, true) :
+                platform();
+    }
+
+    /**
+     * Platform thread per loop.
+     */
+    public static LoopLauncher platform() {
+        return new LoopLauncher(Executors.newCachedThreadPool(), false);
+    }
+
+    public static boolean virtualThreadsSupported() {
+        return NEW_VIRTUAL_EXECUTOR != null;
+    }
+
+    private static Method findVirtualExecutorFactory() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            // preview in 19/20: throws UnsupportedOperationException without --enable-preview
+            ((ExecutorService) method.invoke(null)).shutdown();
+            return method;
+        } catch (Exception e) {
+            debug(log, "Virtual threads not supported, fallback to platform threads");
+            return null;
+        }
+    }
+
+    private static ExecutorService newVirtualExecutor() {
+        if (NEW_VIRTUAL_EXECUTOR == null) return null;
+        try {
+            return (ExecutorService) NEW_VIRTUAL_EXECUTOR.invoke(null);
+        } catch (Exception e) {
+            warn(log, e);
+            return null;
+        }
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    // LoopRunnable products
+    public Future<?> launch(Runnable loop) {
+        return executor.submit(loop);
+    }
+
+    // LoopCallable products
+    public <T> Future<T> launch(Callable<T> loop) {
+        return executor.submit(loop);
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    // interrupt all loops
+    public List<Runnable> shutdownNow() {
+        return executor.shutdownNow();
+    }
+
+    @Override
+    public void close() {
+        shutdownNow();
+    }
+}
@@ -0,0 +1,156 @@
+package veinthrough.api.async;
+
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * @author veinthrough
+ * <p>
+ * Metrics of a loop built by LoopRunnable/LoopCallable.monitored(), thread-safe:
+ * <pre>
+ * 1. iterations
+ * 2. task latency of each iteration, by {@link LatencyHistogram}
+ * 3. time spent working/sleeping
+ * 4. overruns: task latency > interval
+ * 5. termination reason: condition/timeout/interrupt/exception
+ * </pre>
+ * Usually got from {@link LoopMetricsRegistry} so that it can be polled or exported over JMX.
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class LoopMetrics implements LoopMetricsMBean {
+    @Getter
+    private final String name;
+    private final LongAdder iterations = new LongAdder();
+    @Getter
+    private final LatencyHistogram taskLatency = new LatencyHistogram();
+    private final LongAdder workNanos = new LongAdder();
+    private final LongAdder sleepNanos = new LongAdder();
+    private final LongAdder overruns = new LongAdder();
+    private final AtomicLongArray terminations = new AtomicLongArray(TerminationReason.values().length);
+    private volatile TerminationReason lastTermination;
+
+    public LoopMetrics(String name) {
+        this.name = name;
+    }
+
+    public enum TerminationReason {
+        CONDITION,
+        TIMEOUT,
+        INTERRUPT,
+        EXCEPTION
+    }
+
+    // record an iteration, taskNanos: latency of the task
+    public void recordIteration(long taskNanos) {
+        iterations.increment();
+        taskLatency.record(taskNanos);
+        workNanos.add(taskNanos);
+    }
+
+    public void recordSleep(long nanos) {
+        sleepNanos.add(nanos);
+    }
+
+    public void recordOverrun() {
+        overruns.increment();
+    }
+
+    public void recordTermination(TerminationReason reason) {
+        terminations.incrementAndGet(reason.ordinal());
+        lastTermination = reason;
+    }
+
+    public long getTerminations(TerminationReason reason) {
+        return terminations.get(reason.ordinal());
+    }
+
+    @Override
+    public long getIterations() {
+        return iterations.sum();
+    }
+
+    @Override
+    public double getTaskLatencyMeanMicros() {
+        return taskLatency.getMean() / 1000;
+    }
+
+    @Override
+    public long getTaskLatencyP50Micros() {
+        return NANOSECONDS.toMicros(taskLatency.getPercentile(50));
+    }
+
+    @Override
+    public long getTaskLatencyP99Micros() {
+        return NANOSECONDS.toMicros(taskLatency.getPercentile(99));
+    }
+
+    @Override
+    public long getTaskLatencyMaxMicros() {
+        return NANOSECONDS.toMicros(taskLatency.getMax());
+    }
+
+    @Override
+    public long getWorkMillis() {
+        return NANOSECONDS.toMillis(workNanos.sum());
+    }
+
+    @Override
+    public long getSleepMillis() {
+        return NANOSECONDS.toMillis(sleepNanos.sum());
+    }
+
+    @Override
+    public long getOverruns() {
+        return overruns.sum();
+    }
+
+    @Override
+    public long getConditionTerminations() {
+        return getTerminations(TerminationReason.CONDITION);
+    }
+
+    @Override
+    public long getTimeoutTerminations() {
+        return getTerminations(TerminationReason.TIMEOUT);
+    }
+
+    @Override
+    public long getInterruptTerminations() {
+        return getTerminations(TerminationReason.INTERRUPT);
+    }
+
+    @Override
+    public long getExceptionTerminations() {
+        return getTerminations(TerminationReason.EXCEPTION);
+    }
+
+    @Override
+    public String getLastTermination() {
+        TerminationReason reason = lastTermination;
+        return reason == null ? null : reason.name();
+    }
+
+    @Override
+    public void reset() {
+        iterations.reset();
+        taskLatency.reset();
+        workNanos.reset();
+        sleepNanos.reset();
+        overruns.reset();
+        for (int i = 0; i < terminations.length(); i++) terminations.set(i, 0);
+        lastTermination = null;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s{iterations: %d, latency(us) p50/p99/max: %d/%d/%d, " +
+                        "work/sleep(ms): %d/%d, overruns: %d, last termination: %s}",
+                name, getIterations(),
+                getTaskLatencyP50Micros(), getTaskLatencyP99Micros(), getTaskLatencyMaxMicros(),
+                getWorkMillis(), getSleepMillis(), getOverruns(), getLastTermination());
+    }
+}
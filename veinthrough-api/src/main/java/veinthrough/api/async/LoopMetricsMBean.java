@@ -0,0 +1,39 @@
+package veinthrough.api.async;
+
+/**
+ * @author veinthrough
+ * <p>
+ * JMX view of {@link LoopMetrics}, latencies in microseconds, durations in milliseconds.
+ */
+@SuppressWarnings("unused")
+public interface LoopMetricsMBean {
+    String getName();
+
+    long getIterations();
+
+    double getTaskLatencyMeanMicros();
+
+    long getTaskLatencyP50Micros();
+
+    long getTaskLatencyP99Micros();
+
+    long getTaskLatencyMaxMicros();
+
+    long getWorkMillis();
+
+    long getSleepMillis();
+
+    long getOverruns();
+
+    long getConditionTerminations();
+
+    long getTimeoutTerminations();
+
+    long getInterruptTerminations();
+
+    long getExceptionTerminations();
+
+    String getLastTermination();
+
+    void reset();
+}
@@ -0,0 +1,73 @@
+package veinthrough.api.async;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static veinthrough.api.util.MethodLog.error;
+import static veinthrough.api.util.MethodLog.info;
+
+/**
+ * @author veinthrough
+ * <p>
+ * Registry of {@link LoopMetrics} by name, global.
+ * <pre>
+ * 1. metrics(name): get or create, loops with the same name share the same metrics
+ * 2. all(): 轮询所有的metrics, 例如找到slow pollers(p99/overruns)
+ * 3. exportJmx(): 将已有和以后创建的metrics注册为MBean,
+ *   ObjectName: veinthrough.api.async:type=LoopMetrics,name="name"
+ * </pre>
+ */
+@Slf4j
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class LoopMetricsRegistry {
+    private static final String DOMAIN = "veinthrough.api.async";
+    private static final ConcurrentMap<String, LoopMetrics> METRICS = new ConcurrentHashMap<>();
+    private static volatile boolean jmxExported;
+
+    private LoopMetricsRegistry() {
+    }
+
+    public static LoopMetrics metrics(String name) {
+        return METRICS.computeIfAbsent(name, key -> {
+            LoopMetrics metrics = new LoopMetrics(key);
+            if (jmxExported) register(metrics);
+            return metrics;
+        });
+    }
+
+    public static Collection<LoopMetrics> all() {
+        return Collections.unmodifiableCollection(METRICS.values());
+    }
+
+    // export existing and future metrics over JMX
+    public static synchronized void exportJmx() {
+        if (jmxExported) return;
+        jmxExported = true;
+        METRICS.values().forEach(LoopMetricsRegistry::register);
+    }
+
+    public static ObjectName objectName(String name) throws JMException {
+        return new ObjectName(DOMAIN + ":type=LoopMetrics,name=" + ObjectName.quote(name));
+    }
+
+    private static void register(LoopMetrics metrics) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = objectName(metrics.getName());
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(metrics, objectName);
+                info(log, "Registered", objectName.toString());
+            }
+        } catch (JMException e) {
+            error(log, e);
+        }
+    }
+}
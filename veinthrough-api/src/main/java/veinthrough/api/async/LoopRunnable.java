@@ -2,15 +2,29 @@ package veinthrough.api.async;
 
 import lombok.extern.slf4j.Slf4j;
 import veinthrough.api._interface.Condition;
+import veinthrough.api._interface.PrimitiveCondition;
 
-import static veinthrough.api.util.MethodLog.*;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.BooleanSupplier;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static veinthrough.api.async.LoopMetrics.TerminationReason.*;
+import static veinthrough.api.util.MethodLog.debug;
+import static veinthrough.api.util.MethodLog.warn;
 
 /**
  * @author veinthrough
  * <p>
  * 将一个Runnable包装成一个循环执行的Runnable, 直到condition/timeout/interrupted
  * hyper(8 functions): condition/timeout --X-- finish
+ * fastHyper(6 functions): timeout/BooleanSupplier condition --X-- finish
  * sleepy(16 functions): condition/timeout --X-- interval --X-- finish
+ * sleepyAtFixedRate(8 functions): condition/timeout --X-- period/CatchUp --X-- finish
+ * adaptive(4 functions): condition/timeout --X-- IntervalStrategy --X-- finish
+ * scheduled(11 functions): condition/timeout --X-- interval --X-- finish, 返回LoopHandle
+ * wheeled(8 functions): 和scheduled相同, tick/timeout注册到HashedWheelTimer
+ * monitored(4 functions): condition/timeout --X-- interval --X-- finish, 记录到LoopMetrics
  * <p>---------------------------------------------------------
  * <pre>
  * 1. Terminate a Runnable/Callable:
@@ -18,12 +32,25 @@ import static veinthrough.api.util.MethodLog.*;
  *   (2) timeout
  *   (3) interrupt
  *   (4) endless loop: 不终止
+ *   (5) condition + timeout: hyper()/sleepy()保持原有的语义, timeout并且condition满足才终止;
+ *   sleepyAtFixedRate()/scheduled()/wheeled()/monitored(), 任意一个先满足即终止
  * 2. 循环方式:
  *   (1) hyper(): No sleep() in while, 使用!Thread.interrupted()
+ *   fastHyper(): 每次循环不打印log(不需要MethodLog遍历stack), 使用primitive boolean的condition, 没有allocation
  *   (2) sleepy(): With sleep(), no need to use !Thread.interrupted(),
  *   as sleep will clear interrupted sign
+ *   adaptive(): task返回是否有work done, 由IntervalStrategy决定idle多久(backoff/jittered/spin-yield-park)
+ *   sleepyAtFixedRate(): sleepyAtInterval()是fixed delay, period会因task的执行时间漂移;
+ *   fixed rate根据System.nanoTime()计算下一次tick, CatchUp决定错过的ticks是skip还是burst
  *   (3) With sleep() and re-interrupt() if InterruptedException,
  *   try必须放在while内, 如果try放在while外, 会立刻跳出, !Thread.interrupted()就没有意义
+ *   (4) scheduled(): 和sleepy()语义相同, 但是没有while/sleep(), 每次tick提交到共享的ScheduledExecutorService,
+ *   等待interval时不占用线程, 通过返回的LoopHandle取消(代替interrupt)
+ *   (5) wheeled(): 和scheduled()相同, 但是tick/timeout注册到HashedWheelTimer, 注册是O(1),
+ *   一个ticking thread驱动所有的interval/timeout, timeout不需要每次检查System.currentTimeMillis(),
+ *   loop由condition/exception/cancel提前终止时cancel timeout, 不会留在wheel中直到过期
+ *   (6) monitored(): interval <= 0时和hyper()相同, 否则和sleepyAtInterval()相同, 每次循环不打印log,
+ *   记录iterations/task latency/work和sleep time/overruns(task latency > interval)/termination reason到LoopMetrics
  * 3. 是否有interval
  * 4. 循环完成是否执行的动作finish
  */
@@ -34,15 +61,16 @@ public class LoopRunnable extends LoopTask {
     // 2.(1) No sleep() in while, 使用!Thread.interrupted()
     // Terminate: condition/interrupted
     public static Runnable hyper(Runnable task, Condition condition, Runnable finish) {
+        PrimitiveCondition terminated = PrimitiveCondition.of(condition);
         return () -> {
-            log.debug(methodLog("Loop begin"));
-            while (!condition.met() && !Thread.interrupted()) {
-                log.debug(methodLog("Loop ing ..."));
+            debug(log, "Loop begin");
+            while (!terminated.getAsBoolean() && !Thread.interrupted()) {
+                debug(log, "Loop ing ...");
                 task.run();
             }
             // run finish
             finish.run();
-            log.debug(methodLog("Loop end"));
+            debug(log, "Loop end");
         };
     }
 
@@ -65,17 +93,17 @@ public class LoopRunnable extends LoopTask {
     }
 
     // 2.(1)
-    // Terminate: condition/timeout/interrupted
+    // Terminate: timeout and condition(both met)/interrupted
     public static Runnable hyper(Runnable task, Condition condition,
                                  long time, Runnable finish) {
-        return hyper(task, timeoutOrCondition(condition, time), finish);
+        return hyper(task, timeoutAndCondition(condition, time), finish);
     }
 
     // 2.(1)
-    // Terminate: condition/timeout/interrupted
+    // Terminate: timeout and condition(both met)/interrupted
     public static Runnable hyper(Runnable task, Condition condition,
                                  long time) {
-        return hyper(task, timeoutOrCondition(condition, time), NOTHING);
+        return hyper(task, timeoutAndCondition(condition, time), NOTHING);
     }
 
     // 2.(1) No sleep() in while, 使用!Thread.interrupted()
@@ -91,26 +119,71 @@ public class LoopRunnable extends LoopTask {
     }
 
 
+    // 2.(1) fast: the same as hyper(), no logging/allocation in each iteration
+    // Terminate: condition/interrupted
+    public static Runnable fastHyper(Runnable task, BooleanSupplier condition, Runnable finish) {
+        return () -> {
+            debug(log, "Loop begin");
+            while (!condition.getAsBoolean() && !Thread.interrupted()) {
+                task.run();
+            }
+            // run finish
+            finish.run();
+            debug(log, "Loop end");
+        };
+    }
+
+    // 2.(1) fast
+    // Terminate: condition/interrupted
+    public static Runnable fastHyper(Runnable task, BooleanSupplier condition) {
+        return fastHyper(task, condition, NOTHING);
+    }
+
+    // 2.(1) fast
+    // Terminate: timeout/interrupted
+    public static Runnable fastHyper(Runnable task, long time, Runnable finish) {
+        return fastHyper(task, timeout(time), finish);
+    }
+
+    // 2.(1) fast
+    // Terminate: timeout/interrupted
+    public static Runnable fastHyper(Runnable task, long time) {
+        return fastHyper(task, timeout(time), NOTHING);
+    }
+
+    // 2.(1) fast
+    // Terminate: interrupted
+    public static Runnable fastHyper(Runnable task, Runnable finish) {
+        return fastHyper(task, NEVER, finish);
+    }
+
+    // 2.(1) fast
+    // Terminate: interrupted
+    public static Runnable fastHyper(Runnable task) {
+        return fastHyper(task, NEVER, NOTHING);
+    }
+
     // 2.(2) With sleep(), no need to use !Thread.interrupted()
     // terminate: condition/interrupted
     public static Runnable sleepyAtInterval(Runnable task, Condition condition,
                                             long interval,
                                             Runnable finish) {
+        PrimitiveCondition terminated = PrimitiveCondition.of(condition);
         return () -> {
             try {
-                log.debug(methodLog("Loop begin"));
+                debug(log, "Loop begin");
                 // no need to use !Thread.interrupted(), as sleep will clear interrupted sign
 //                while (!condition.met() && !Thread.interrupted()) {
-                while (!condition.met()) {
-                    log.debug(methodLog("Loop ing ..."));
+                while (!terminated.getAsBoolean()) {
+                    debug(log, "Loop ing ...");
                     task.run();
                     Thread.sleep(interval);
                 }
                 // run finish
                 finish.run();
-                log.debug(methodLog("Loop end"));
+                debug(log, "Loop end");
             } catch (InterruptedException e) {
-                log.warn(exceptionLog(e));
+                warn(log, e);
             }
         };
     }
@@ -162,33 +235,33 @@ public class LoopRunnable extends LoopTask {
     }
 
     // 2.(2)
-    // terminate: terminate/timeout/interrupted
+    // terminate: timeout and condition(both met)/interrupted
     public static Runnable sleepyAtInterval(Runnable task, Condition condition,
                                             long time, long interval,
                                             Runnable finish) {
-        return sleepyAtInterval(task, timeoutOrCondition(condition, time), interval, finish);
+        return sleepyAtInterval(task, timeoutAndCondition(condition, time), interval, finish);
     }
 
     // 2.(2)
-    // terminate: terminate/timeout/interrupted
+    // terminate: timeout and condition(both met)/interrupted
     public static Runnable sleepyAtInterval(Runnable task, Condition condition,
                                             long time, long interval) {
-        return sleepyAtInterval(task, timeoutOrCondition(condition, time), interval, NOTHING);
+        return sleepyAtInterval(task, timeoutAndCondition(condition, time), interval, NOTHING);
     }
 
     // 2.(2)
-    // terminate: terminate/timeout/interrupted
+    // terminate: timeout and condition(both met)/interrupted
     public static Runnable sleepy(Runnable task, Condition condition,
                                   long time,
                                   Runnable finish) {
-        return sleepyAtInterval(task, timeoutOrCondition(condition, time), DEFAULT_INTERVAL, finish);
+        return sleepyAtInterval(task, timeoutAndCondition(condition, time), DEFAULT_INTERVAL, finish);
     }
 
     // 2.(2)
-    // terminate: terminate/timeout/interrupted
+    // terminate: timeout and condition(both met)/interrupted
     public static Runnable sleepy(Runnable task, Condition condition,
                                   long time) {
-        return sleepyAtInterval(task, timeoutOrCondition(condition, time), DEFAULT_INTERVAL, NOTHING);
+        return sleepyAtInterval(task, timeoutAndCondition(condition, time), DEFAULT_INTERVAL, NOTHING);
     }
 
     // 2.(2)
@@ -215,28 +288,384 @@ public class LoopRunnable extends LoopTask {
         return sleepyAtInterval(task, NEVER, DEFAULT_INTERVAL, NOTHING);
     }
 
+    // 2.(2) fixed rate: the next tick is scheduled by System.nanoTime() from the first one,
+    // so the period does not drift by the task duration, catchUp decides what to do with missed ticks
+    // terminate: condition/interrupted
+    public static Runnable sleepyAtFixedRate(Runnable task, Condition condition,
+                                             long period, CatchUp catchUp,
+                                             Runnable finish) {
+        checkArgument(period > 0, "period must be positive.");
+        PrimitiveCondition terminated = PrimitiveCondition.of(condition);
+        long periodNanos = MILLISECONDS.toNanos(period);
+        return () -> {
+            try {
+                debug(log, "Loop begin");
+                long tick = System.nanoTime();
+                while (!terminated.getAsBoolean()) {
+                    debug(log, "Loop ing ...");
+                    task.run();
+                    tick = catchUp.next(tick, periodNanos, System.nanoTime());
+                    CatchUp.sleepUntil(tick);
+                }
+                // run finish
+                finish.run();
+                debug(log, "Loop end");
+            } catch (InterruptedException e) {
+                warn(log, e);
+            }
+        };
+    }
+
+    // 2.(2) fixed rate
+    // terminate: condition/interrupted
+    public static Runnable sleepyAtFixedRate(Runnable task, Condition condition,
+                                             long period, CatchUp catchUp) {
+        return sleepyAtFixedRate(task, condition, period, catchUp, NOTHING);
+    }
+
+    // 2.(2) fixed rate, skip missed ticks
+    // terminate: condition/interrupted
+    public static Runnable sleepyAtFixedRate(Runnable task, Condition condition,
+                                             long period,
+                                             Runnable finish) {
+        return sleepyAtFixedRate(task, condition, period, CatchUp.SKIP, finish);
+    }
+
+    // 2.(2) fixed rate
+    // terminate: timeout/interrupted
+    public static Runnable sleepyAtFixedRate(Runnable task,
+                                             long time, long period, CatchUp catchUp,
+                                             Runnable finish) {
+        return sleepyAtFixedRate(task, timeout(time), period, catchUp, finish);
+    }
+
+    // 2.(2) fixed rate
+    // terminate: timeout/interrupted
+    public static Runnable sleepyAtFixedRate(Runnable task,
+                                             long time, long period, CatchUp catchUp) {
+        return sleepyAtFixedRate(task, timeout(time), period, catchUp, NOTHING);
+    }
+
+    // 2.(2) fixed rate, skip missed ticks
+    // terminate: timeout/interrupted
+    public static Runnable sleepyAtFixedRate(Runnable task,
+                                             long time, long period,
+                                             Runnable finish) {
+        return sleepyAtFixedRate(task, timeout(time), period, CatchUp.SKIP, finish);
+    }
+
+    // 2.(2) fixed rate
+    // terminate: condition or timeout(whichever first)/interrupted
+    public static Runnable sleepyAtFixedRate(Runnable task, Condition condition,
+                                             long time, long period, CatchUp catchUp,
+                                             Runnable finish) {
+        return sleepyAtFixedRate(task, timeoutOrCondition(condition, time), period, catchUp, finish);
+    }
+
+    // 2.(2) fixed rate
+    // terminate: interrupted
+    public static Runnable sleepyAtFixedRate(Runnable task, long period, CatchUp catchUp) {
+        return sleepyAtFixedRate(task, NEVER, period, catchUp, NOTHING);
+    }
+
+    // 2.(2) adaptive: task reports whether work done, strategy idles after each iteration
+    // terminate: condition/interrupted
+    public static Runnable adaptive(BooleanSupplier task, Condition condition,
+                                    IntervalStrategy strategy,
+                                    Runnable finish) {
+        PrimitiveCondition terminated = PrimitiveCondition.of(condition);
+        return () -> {
+            try {
+                debug(log, "Loop begin");
+                strategy.reset();
+                // no need to use !Thread.interrupted(), as strategy will throw InterruptedException
+                while (!terminated.getAsBoolean()) {
+                    debug(log, "Loop ing ...");
+                    strategy.idle(task.getAsBoolean());
+                }
+                // run finish
+                finish.run();
+                debug(log, "Loop end");
+            } catch (InterruptedException e) {
+                warn(log, e);
+            }
+        };
+    }
+
+    // 2.(2) adaptive
+    // terminate: condition/interrupted
+    public static Runnable adaptive(BooleanSupplier task, Condition condition,
+                                    IntervalStrategy strategy) {
+        return adaptive(task, condition, strategy, NOTHING);
+    }
+
+    // 2.(2) adaptive
+    // terminate: timeout/interrupted
+    public static Runnable adaptive(BooleanSupplier task, long time,
+                                    IntervalStrategy strategy,
+                                    Runnable finish) {
+        return adaptive(task, timeout(time), strategy, finish);
+    }
+
+    // 2.(2) adaptive
+    // terminate: interrupted
+    public static Runnable adaptive(BooleanSupplier task, IntervalStrategy strategy) {
+        return adaptive(task, NEVER, strategy, NOTHING);
+    }
+
+    // 2.(6) monitored: hyper()(interval <= 0)/sleepyAtInterval()(interval > 0), records metrics of each iteration
+    // terminate: condition or timeout(whichever first)/interrupted
+    public static Runnable monitored(LoopMetrics metrics, Runnable task, Condition condition,
+                                     long time, long interval,
+                                     Runnable finish) {
+        return monitored(metrics, task, timeoutOrCondition(condition, time), interval, finish);
+    }
+
+    // 2.(6) monitored
+    // terminate: condition/interrupted
+    public static Runnable monitored(LoopMetrics metrics, Runnable task, Condition condition,
+                                     long interval,
+                                     Runnable finish) {
+        return monitored(metrics, task, timeoutOrCondition(PrimitiveCondition.of(condition), NEVER), interval, finish);
+    }
+
+    // 2.(6) monitored
+    // terminate: timeout/interrupted
+    public static Runnable monitored(LoopMetrics metrics, Runnable task, long time,
+                                     long interval,
+                                     Runnable finish) {
+        return monitored(metrics, task, timeoutOrCondition(NEVER, timeout(time)), interval, finish);
+    }
+
+    // 2.(6) monitored
+    // terminate: interrupted
+    public static Runnable monitored(LoopMetrics metrics, Runnable task, long interval) {
+        return monitored(metrics, task, timeoutOrCondition(NEVER, NEVER), interval, NOTHING);
+    }
+
+    // the same termination rule as other loops, TimeoutOrCondition tells the reason
+    private static Runnable monitored(LoopMetrics metrics, Runnable task,
+                                      TimeoutOrCondition terminated,
+                                      long interval,
+                                      Runnable finish) {
+        long intervalNanos = MILLISECONDS.toNanos(interval);
+        return () -> {
+            debug(log, "Loop begin", "loop", metrics.getName());
+            try {
+                while (true) {
+                    if (terminated.getAsBoolean()) {
+                        metrics.recordTermination(terminated.timedOut() ? TIMEOUT : CONDITION);
+                        break;
+                    }
+                    // hyper: no sleep() to throw InterruptedException
+                    if (interval <= 0 && Thread.interrupted()) throw new InterruptedException();
+                    long start = System.nanoTime();
+                    task.run();
+                    long end = System.nanoTime();
+                    metrics.recordIteration(end - start);
+                    if (interval > 0) {
+                        if (end - start > intervalNanos) metrics.recordOverrun();
+                        try {
+                            Thread.sleep(interval);
+                        } finally {
+                            metrics.recordSleep(System.nanoTime() - end);
+                        }
+                    }
+                }
+                // run finish
+                finish.run();
+                // metrics formatted only if debug is enabled
+                debug(log, () -> "Loop end, " + metrics);
+            } catch (InterruptedException e) {
+                metrics.recordTermination(INTERRUPT);
+                warn(log, e, metrics.getName());
+            } catch (RuntimeException e) {
+                metrics.recordTermination(EXCEPTION);
+                throw e;
+            }
+        };
+    }
+
+    // 2.(4) Without thread, ticks on scheduler
+    // terminate: condition/cancelled
+    public static LoopHandle<Void> scheduledAtInterval(ScheduledExecutorService scheduler,
+                                                       Runnable task, Condition condition,
+                                                       long interval,
+                                                       Runnable finish) {
+        return ScheduledLoop.start(scheduler,
+                () -> {
+                    task.run();
+                    return null;
+                },
+                condition, interval,
+                // run finish
+                result -> finish.run());
+    }
+
+    // 2.(4)
+    // terminate: condition/cancelled
+    public static LoopHandle<Void> scheduledAtInterval(Runnable task, Condition condition,
+                                                       long interval,
+                                                       Runnable finish) {
+        return scheduledAtInterval(defaultScheduler(), task, condition, interval, finish);
+    }
+
+    // 2.(4)
+    // terminate: condition/cancelled
+    public static LoopHandle<Void> scheduledAtInterval(Runnable task, Condition condition,
+                                                       long interval) {
+        return scheduledAtInterval(defaultScheduler(), task, condition, interval, NOTHING);
+    }
+
+    // 2.(4)
+    // terminate: timeout/cancelled
+    public static LoopHandle<Void> scheduledAtInterval(Runnable task,
+                                                       long time, long interval,
+                                                       Runnable finish) {
+        return scheduledAtInterval(defaultScheduler(), task, timeout(time), interval, finish);
+    }
+
+    // 2.(4)
+    // terminate: timeout/cancelled
+    public static LoopHandle<Void> scheduledAtInterval(Runnable task,
+                                                       long time, long interval) {
+        return scheduledAtInterval(defaultScheduler(), task, timeout(time), interval, NOTHING);
+    }
+
+    // 2.(4)
+    // terminate: condition or timeout(whichever first)/cancelled
+    public static LoopHandle<Void> scheduledAtInterval(Runnable task, Condition condition,
+                                                       long time, long interval,
+                                                       Runnable finish) {
+        return scheduledAtInterval(defaultScheduler(), task, timeoutOrCondition(condition, time), interval, finish);
+    }
+
+    // 2.(4)
+    // terminate: cancelled
+    public static LoopHandle<Void> scheduledAtInterval(Runnable task, long interval, Runnable finish) {
+        return scheduledAtInterval(defaultScheduler(), task, NEVER, interval, finish);
+    }
+
+    // 2.(4)
+    // terminate: cancelled
+    public static LoopHandle<Void> scheduledAtInterval(Runnable task, long interval) {
+        return scheduledAtInterval(defaultScheduler(), task, NEVER, interval, NOTHING);
+    }
+
+    // 2.(4)
+    // terminate: condition/cancelled
+    public static LoopHandle<Void> scheduled(Runnable task, Condition condition, Runnable finish) {
+        return scheduledAtInterval(defaultScheduler(), task, condition, DEFAULT_INTERVAL, finish);
+    }
+
+    // 2.(4)
+    // terminate: timeout/cancelled
+    public static LoopHandle<Void> scheduled(Runnable task, long time, Runnable finish) {
+        return scheduledAtInterval(defaultScheduler(), task, timeout(time), DEFAULT_INTERVAL, finish);
+    }
+
+    // 2.(4)
+    // terminate: cancelled
+    public static LoopHandle<Void> scheduled(Runnable task) {
+        return scheduledAtInterval(defaultScheduler(), task, NEVER, DEFAULT_INTERVAL, NOTHING);
+    }
+
+    // 2.(5) Without thread, ticks on hashed wheel timer
+    // terminate: condition/cancelled
+    public static LoopHandle<Void> wheeledAtInterval(HashedWheelTimer timer,
+                                                     Runnable task, Condition condition,
+                                                     long interval,
+                                                     Runnable finish) {
+        return ScheduledLoop.start(timer,
+                () -> {
+                    task.run();
+                    return null;
+                },
+                condition, interval,
+                // run finish
+                result -> finish.run());
+    }
+
+    // 2.(5)
+    // terminate: timeout/cancelled
+    public static LoopHandle<Void> wheeledAtInterval(HashedWheelTimer timer,
+                                                     Runnable task,
+                                                     long time, long interval,
+                                                     Runnable finish) {
+        HashedWheelTimer.Timeout deadline = timeout(timer, time);
+        return cancelOnEnd(wheeledAtInterval(timer, task, deadline, interval, finish), deadline);
+    }
+
+    // 2.(5)
+    // terminate: condition or timeout(whichever first)/cancelled
+    public static LoopHandle<Void> wheeledAtInterval(HashedWheelTimer timer,
+                                                     Runnable task, Condition condition,
+                                                     long time, long interval,
+                                                     Runnable finish) {
+        HashedWheelTimer.Timeout deadline = timeout(timer, time);
+        return cancelOnEnd(wheeledAtInterval(timer, task,
+                timeoutOrCondition(PrimitiveCondition.of(condition), deadline), interval, finish), deadline);
+    }
+
+    // 2.(5)
+    // terminate: condition/cancelled
+    public static LoopHandle<Void> wheeledAtInterval(Runnable task, Condition condition,
+                                                     long interval,
+                                                     Runnable finish) {
+        return wheeledAtInterval(defaultTimer(), task, condition, interval, finish);
+    }
+
+    // 2.(5)
+    // terminate: timeout/cancelled
+    public static LoopHandle<Void> wheeledAtInterval(Runnable task,
+                                                     long time, long interval,
+                                                     Runnable finish) {
+        return wheeledAtInterval(defaultTimer(), task, time, interval, finish);
+    }
+
+    // 2.(5)
+    // terminate: condition or timeout(whichever first)/cancelled
+    public static LoopHandle<Void> wheeledAtInterval(Runnable task, Condition condition,
+                                                     long time, long interval,
+                                                     Runnable finish) {
+        return wheeledAtInterval(defaultTimer(), task, condition, time, interval, finish);
+    }
+
+    // 2.(5)
+    // terminate: cancelled
+    public static LoopHandle<Void> wheeledAtInterval(Runnable task, long interval) {
+        return wheeledAtInterval(defaultTimer(), task, NEVER, interval, NOTHING);
+    }
+
+    // 2.(5)
+    // terminate: timeout/cancelled
+    public static LoopHandle<Void> wheeled(Runnable task, long time, Runnable finish) {
+        return wheeledAtInterval(defaultTimer(), task, time, DEFAULT_INTERVAL, finish);
+    }
+
     // 3. With sleep() and re-interrupt() if InterruptedException
     @Deprecated
     public static Runnable sleepyAndInterruptedAtInterval(
             Runnable task, Condition condition,
             long interval,
             Runnable finish) {
+        PrimitiveCondition terminated = PrimitiveCondition.of(condition);
         return () -> {
-            log.debug(methodLog("Loop begin"));
-            while (!condition.met() && !Thread.interrupted()) {
-                log.debug(methodLog("Loop ing ..."));
+            debug(log, "Loop begin");
+            while (!terminated.getAsBoolean() && !Thread.interrupted()) {
+                debug(log, "Loop ing ...");
                 task.run();
                 // try必须放在while内, 如果try放在while外, 会立刻跳出, !Thread.interrupted()就没有意义
                 try {
                     Thread.sleep(interval);
                 } catch (InterruptedException e) {
-                    log.warn(exceptionLog(e));
+                    warn(log, e);
                     Thread.currentThread().interrupt();
                 }
             }
             // run finish
             finish.run();
-            log.debug(methodLog("Loop end"));
+            debug(log, "Loop end");
         };
     }
 
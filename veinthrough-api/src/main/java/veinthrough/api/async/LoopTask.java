@@ -1,48 +1,131 @@
 package veinthrough.api.async;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import lombok.extern.slf4j.Slf4j;
 import veinthrough.api._interface.Condition;
+import veinthrough.api._interface.PrimitiveCondition;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 import static veinthrough.api.util.Constants.MILLIS_PER_SECOND;
-import static veinthrough.api.util.MethodLog.methodLog;
 
 @SuppressWarnings({"unused", "WeakerAccess"})
 @Slf4j
 abstract class LoopTask {
     protected static final int DEFAULT_INTERVAL = MILLIS_PER_SECOND;
-    protected static final Condition NEVER = never();
+    protected static final PrimitiveCondition NEVER = never();
     protected static final Runnable NOTHING = () -> {};
 
+    // shared by all scheduled loops, lazily created
+    private static class SchedulerHolder {
+        private static final ScheduledExecutorService SCHEDULER = Executors.newScheduledThreadPool(
+                Runtime.getRuntime().availableProcessors(),
+                new ThreadFactoryBuilder()
+                        .setNameFormat("loop-scheduler-%d")
+                        .setDaemon(true)
+                        .build());
+    }
+
+    protected static ScheduledExecutorService defaultScheduler() {
+        return SchedulerHolder.SCHEDULER;
+    }
+
+    // shared by all wheeled loops, lazily created
+    // one ticking thread drives all deadlines/intervals, tasks are executed in the worker pool
+    private static class TimerHolder {
+        private static final HashedWheelTimer TIMER = new HashedWheelTimer(Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors(),
+                new ThreadFactoryBuilder()
+                        .setNameFormat("loop-wheel-worker-%d")
+                        .setDaemon(true)
+                        .build()));
+    }
+
+    protected static HashedWheelTimer defaultTimer() {
+        return TimerHolder.TIMER;
+    }
+
+    // shared by all streamed loops, lazily created
+    // a streamed loop occupies its thread until terminated, so the pool is not bounded
+    private static class StreamerHolder {
+        private static final ExecutorService STREAMER = Executors.newCachedThreadPool(
+                new ThreadFactoryBuilder()
+                        .setNameFormat("loop-streamer-%d")
+                        .setDaemon(true)
+                        .build());
+    }
+
+    protected static ExecutorService defaultStreamer() {
+        return StreamerHolder.STREAMER;
+    }
+
     protected static long durationSince(long startTime) {
         return System.currentTimeMillis() - startTime;
     }
 
-    protected static Condition never() {
-        return () -> false;
+    // primitive conditions: no boxing, no logging for each check
+    protected static PrimitiveCondition never() {
+        return PrimitiveCondition.never();
     }
 
-    protected static Condition timeout(long time) {
-        return new Condition() {
-            private final long startTime = System.currentTimeMillis();
-            @Override
-            public Boolean get() {
-                long duration = durationSince(startTime);
-                log.debug(methodLog(String.format("Duration: %d(ms)", duration)));
-                return duration >= time;
-            }
-        };
-    }
-
-    protected static Condition timeoutOrCondition(Condition condition, long time) {
-        return new Condition() {
-            private final long startTime = System.currentTimeMillis();
-            @Override
-            public Boolean get() {
-                long duration = durationSince(startTime);
-                log.debug(methodLog(String.format("Duration: %d(ms)", duration)));
-                return duration >= time &&
-                        condition.met();
+    protected static PrimitiveCondition timeout(long time) {
+        return PrimitiveCondition.deadline(time);
+    }
+
+    // the legacy rule of hyper()/sleepy()/sleepyAtInterval() with condition and time, kept for their callers:
+    // met when timeout and the condition is met
+    protected static PrimitiveCondition timeoutAndCondition(Condition condition, long time) {
+        return timeout(time).and(PrimitiveCondition.of(condition));
+    }
+
+    // met when the condition is met or timeout, whichever first
+    protected static TimeoutOrCondition timeoutOrCondition(Condition condition, long time) {
+        return timeoutOrCondition(PrimitiveCondition.of(condition), timeout(time));
+    }
+
+    protected static TimeoutOrCondition timeoutOrCondition(PrimitiveCondition condition, PrimitiveCondition timeout) {
+        return new TimeoutOrCondition(condition, timeout);
+    }
+
+    // deadline registered in timer, no clock polling
+    protected static HashedWheelTimer.Timeout timeout(HashedWheelTimer timer, long time) {
+        return timer.deadline(time);
+    }
+
+    // the deadline is cancelled when the loop ends by condition/exception/cancel,
+    // instead of left in the wheel until it expires
+    protected static <T> LoopHandle<T> cancelOnEnd(LoopHandle<T> handle, HashedWheelTimer.Timeout deadline) {
+        handle.whenComplete((result, e) -> deadline.cancel());
+        return handle;
+    }
+
+    // the termination rule of all loops with condition and timeout,
+    // remembers which one is met to tell the termination reason, e.g. by monitored()
+    // not thread-safe, should be checked by only one loop
+    static final class TimeoutOrCondition implements PrimitiveCondition {
+        private final PrimitiveCondition condition;
+        private final PrimitiveCondition timeout;
+        private boolean timedOut;
+
+        private TimeoutOrCondition(PrimitiveCondition condition, PrimitiveCondition timeout) {
+            this.condition = condition;
+            this.timeout = timeout;
+        }
+
+        @Override
+        public boolean getAsBoolean() {
+            if (condition.getAsBoolean()) {
+                timedOut = false;
+                return true;
             }
-        };
+            return timedOut = timeout.getAsBoolean();
+        }
+
+        // after met: by timeout instead of the condition
+        boolean timedOut() {
+            return timedOut;
+        }
     }
 }
@@ -0,0 +1,107 @@
+package veinthrough.api.async;
+
+import lombok.extern.slf4j.Slf4j;
+import veinthrough.api._interface.Condition;
+import veinthrough.api._interface.PrimitiveCondition;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static veinthrough.api.util.MethodLog.debug;
+import static veinthrough.api.util.MethodLog.error;
+
+/**
+ * @author veinthrough
+ * <p>
+ * sleepy loop的scheduler版本, 每次tick只执行一次task, 然后在interval后重新提交自己:
+ * <pre>
+ * 1. 和sleepyAtInterval相同的语义: check condition -> task -> wait interval -> check condition ...
+ * 2. 等待interval时不占用线程, 所有循环共享scheduler的线程
+ * 3. 通过LoopHandle取消循环, 取消后不执行consumer
+ * 4. tick的来源:
+ *   (1) ScheduledExecutorService
+ *   (2) HashedWheelTimer, 注册tick是O(1), task在timer的executor中执行
+ * </pre>
+ */
+@Slf4j
+class ScheduledLoop<T> implements Runnable {
+    private final Ticker ticker;
+    private final Callable<T> task;
+    private final PrimitiveCondition condition;
+    private final long interval;
+    private final Consumer<T> consumer;
+    private final LoopHandle<T> handle = new LoopHandle<>();
+    // only accessed by one tick at a time
+    private T result;
+
+    private ScheduledLoop(Ticker ticker,
+                          Callable<T> task, Condition condition,
+                          long interval,
+                          Consumer<T> consumer) {
+        this.ticker = ticker;
+        this.task = task;
+        this.condition = PrimitiveCondition.of(condition);
+        this.interval = interval;
+        this.consumer = consumer;
+    }
+
+    static <T> LoopHandle<T> start(ScheduledExecutorService scheduler,
+                                   Callable<T> task, Condition condition,
+                                   long interval,
+                                   Consumer<T> consumer) {
+        return start((tick, delay) -> {
+                    Future<?> future = scheduler.schedule(tick, delay, MILLISECONDS);
+                    return () -> future.cancel(false);
+                },
+                task, condition, interval, consumer);
+    }
+
+    static <T> LoopHandle<T> start(HashedWheelTimer timer,
+                                   Callable<T> task, Condition condition,
+                                   long interval,
+                                   Consumer<T> consumer) {
+        return start((tick, delay) -> timer.newTimeout(tick, delay, MILLISECONDS)::cancel,
+                task, condition, interval, consumer);
+    }
+
+    private static <T> LoopHandle<T> start(Ticker ticker,
+                                           Callable<T> task, Condition condition,
+                                           long interval,
+                                           Consumer<T> consumer) {
+        ScheduledLoop<T> loop = new ScheduledLoop<>(ticker, task, condition, interval, consumer);
+        debug(log, "Loop begin");
+        // first tick: check condition immediately, the same as sleepyAtInterval
+        // not set as pending, the loop checks cancellation itself
+        ticker.schedule(loop, 0);
+        return loop.handle;
+    }
+
+    @Override
+    public void run() {
+        if (handle.isDone()) return;
+        try {
+            if (condition.getAsBoolean()) {
+                // consume result
+                consumer.accept(result);
+                handle.complete(result);
+                debug(log, "Loop end");
+                return;
+            }
+            debug(log, "Loop ing ...");
+            result = task.call();
+            handle.setPending(ticker.schedule(this, interval));
+        } catch (Exception e) {
+            error(log, e);
+            handle.completeExceptionally(e);
+        }
+    }
+
+    // schedule the next tick, return the canceller of the tick
+    @FunctionalInterface
+    private interface Ticker {
+        Runnable schedule(Runnable tick, long delay);
+    }
+}
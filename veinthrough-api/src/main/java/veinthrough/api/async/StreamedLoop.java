@@ -0,0 +1,153 @@
+package veinthrough.api.async;
+
+import lombok.extern.slf4j.Slf4j;
+import veinthrough.api._interface.Condition;
+import veinthrough.api._interface.PrimitiveCondition;
+
+import java.util.Spliterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static veinthrough.api.util.MethodLog.debug;
+import static veinthrough.api.util.MethodLog.error;
+import static veinthrough.api.util.MethodLog.warn;
+
+/**
+ * @author veinthrough
+ * <p>
+ * LoopCallable的streaming版本, 每次iteration的result都发布到下游的Stream, 而不是只返回最后一个result:
+ * <pre>
+ * 1. loop在executor中执行, 和hyper()(interval <= 0)/sleepyAtInterval()(interval > 0)相同的语义
+ * 2. backpressure: result放入bounded queue, queue满时loop阻塞在put(), 直到consumer取走result
+ * 3. consumer通过Stream/Spliterator逐个处理result, stream在loop终止时结束
+ * 4. task抛出Exception: stream处理完之前的result后抛出CompletionException
+ * 5. Stream.close(): 终止loop(interrupt loop所在的线程), 所以stream应该在try-with-resources中使用
+ * </pre>
+ * java.util.concurrent.Flow requires Java 9, so the Java 8 Spliterator/Stream is used instead.
+ */
+@Slf4j
+class StreamedLoop<T> implements Runnable, Spliterator<T> {
+    // placeholders in queue
+    private static final Object NULL = new Object();
+    private static final Object END = new Object();
+
+    private final Callable<T> task;
+    private final PrimitiveCondition condition;
+    private final long interval;
+    private final BlockingQueue<Object> queue;
+    private volatile boolean closed;
+    private volatile Exception failure;
+    // guarded by this
+    private Thread runner;
+    // only accessed by the consumer
+    private boolean ended;
+
+    private StreamedLoop(Callable<T> task, Condition condition, long interval, int capacity) {
+        checkArgument(capacity > 0, "capacity must be positive.");
+        this.task = task;
+        this.condition = PrimitiveCondition.of(condition);
+        this.interval = interval;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    static <T> Stream<T> start(Executor executor,
+                               Callable<T> task, Condition condition,
+                               long interval, int capacity) {
+        StreamedLoop<T> loop = new StreamedLoop<>(task, condition, interval, capacity);
+        executor.execute(loop);
+        return StreamSupport.stream(loop, false).onClose(loop::close);
+    }
+
+    @Override
+    public void run() {
+        synchronized (this) {
+            if (closed) return;
+            runner = Thread.currentThread();
+        }
+        try {
+            debug(log, "Loop begin");
+            while (!closed && !condition.getAsBoolean()) {
+                T result = task.call();
+                // backpressure
+                queue.put(result == null ? NULL : result);
+                if (interval > 0) Thread.sleep(interval);
+                else if (Thread.interrupted()) throw new InterruptedException();
+            }
+            debug(log, "Loop end");
+        } catch (InterruptedException e) {
+            if (!closed) warn(log, e);
+        } catch (Exception e) {
+            error(log, e);
+            failure = e;
+        } finally {
+            synchronized (this) {
+                runner = null;
+                // clear the interrupt of close() before leaving the executor's thread
+                if (closed) Thread.interrupted();
+            }
+        }
+        end();
+    }
+
+    private void end() {
+        if (closed) return;
+        try {
+            queue.put(END);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // terminate the loop, results not consumed are discarded
+    void close() {
+        synchronized (this) {
+            closed = true;
+            if (runner != null) runner.interrupt();
+        }
+        queue.clear();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (ended) return false;
+        Object next;
+        try {
+            next = queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            ended = true;
+            return false;
+        }
+        if (next == END) {
+            ended = true;
+            if (failure != null) throw new CompletionException(failure);
+            return false;
+        }
+        action.accept(next == NULL ? null : (T) next);
+        return true;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED;
+    }
+}
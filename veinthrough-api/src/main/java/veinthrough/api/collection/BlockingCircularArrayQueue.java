@@ -0,0 +1,135 @@
+package veinthrough.api.collection;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+
+/**
+ * @author veinthrough
+ * <p>
+ * A {@link CircularArrayQueue} shared between threads, offer() waits when full instead of an overflow policy:
+ * <pre>
+ * 1. all methods synchronized on the queue, the lock is only paid here, not by CircularArrayQueue
+ * 2. offer(): waits until another thread polls, returns false if interrupted(the interrupt flag kept)
+ *    offerAll(): waits for polls batch by batch, returns number of elements offered before interrupted
+ * 3. poll()/drainTo()/ensureCapacity(): wake up the waiting offers
+ * 4. iterator()/spliterator(): over a snapshot copied under the lock, not fail-fast
+ * </pre>
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class BlockingCircularArrayQueue<E> extends CircularArrayQueue<E> {
+
+    /**
+     * Constructs an empty queue.
+     *
+     * @param capacity the maximum capacity of the queue, positive as offer() would wait forever on 0
+     */
+    public BlockingCircularArrayQueue(int capacity) {
+        // never full when offered, as offers wait for room
+        super(checkPositive(capacity), OverflowPolicy.DROP_NEWEST);
+    }
+
+    private static int checkPositive(int capacity) {
+        checkArgument(capacity > 0, "capacity must be positive.");
+        return capacity;
+    }
+
+    @Override
+    public synchronized boolean offer(E newElement) {
+        try {
+            while (size() == capacity()) wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return super.offer(newElement);
+    }
+
+    @Override
+    public synchronized E poll() {
+        E r = super.poll();
+        if (r != null) notifyAll();
+        return r;
+    }
+
+    @Override
+    public synchronized int offerAll(E[] src, int off, int len) {
+        checkPositionIndexes(off, off + len, src.length);
+        // all rejected before any batch is offered
+        checkNoNulls(src, off, len);
+        int offered = 0;
+        try {
+            while (offered < len) {
+                while (size() == capacity()) wait();
+                offered += super.offerAll(src, off + offered, len - offered);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return offered;
+    }
+
+    @Override
+    public synchronized int drainTo(E[] dst, int off, int max) {
+        int n = super.drainTo(dst, off, max);
+        if (n > 0) notifyAll();
+        return n;
+    }
+
+    @Override
+    public synchronized int drainTo(Collection<? super E> c, int max) {
+        int n = super.drainTo(c, max);
+        if (n > 0) notifyAll();
+        return n;
+    }
+
+    @Override
+    public synchronized E peek() {
+        return super.peek();
+    }
+
+    @Override
+    public synchronized int size() {
+        return super.size();
+    }
+
+    @Override
+    public synchronized int capacity() {
+        return super.capacity();
+    }
+
+    @Override
+    public synchronized void ensureCapacity(int minCapacity) {
+        super.ensureCapacity(minCapacity);
+        notifyAll();
+    }
+
+    @Override
+    public synchronized void trimToSize() {
+        super.trimToSize();
+    }
+
+    @Override
+    public synchronized Object[] toArray() {
+        return super.toArray();
+    }
+
+    // 4.
+    @Override
+    @SuppressWarnings("unchecked")
+    public Iterator<E> iterator() {
+        return (Iterator<E>) Arrays.asList(toArray()).iterator();
+    }
+
+    // 4.
+    @Override
+    @SuppressWarnings("unchecked")
+    public Spliterator<E> spliterator() {
+        return (Spliterator<E>) Spliterators.spliterator(toArray(), Spliterator.ORDERED | Spliterator.NONNULL);
+    }
+}
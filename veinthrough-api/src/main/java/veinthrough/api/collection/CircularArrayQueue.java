@@ -2,30 +2,71 @@ package veinthrough.api.collection;
 
 
 import java.util.AbstractQueue;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.*;
 
 /**
  A first-in, first-out bounded collection.
  Implemented by circular array.
+ <pre>
+ What offer() does when the queue is full, by {@link OverflowPolicy}:
+ 1. DROP_NEWEST(default): returns false, the new element is dropped
+ 2. GROW: capacity doubled, elements unwrapped to the beginning of the new array
+ 3. OVERWRITE_OLDEST: the oldest element is overwritten in place, without reallocating,
+   a ring log of the last N elements
+ Bulk offerAll()/drainTo(): at most 2 System.arraycopy and one modCount++ per batch.
+ spliterator(): SIZED|SUBSIZED|ORDERED, splits the wrapped index range in half, so parallelStream() scales.
+ Not thread-safe, no lock on any operation;
+ {@link BlockingCircularArrayQueue} is shared between threads and waits when full.
+ </pre>
  */
 public class CircularArrayQueue<E> extends AbstractQueue<E> {
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
     private Object[] elements;
     private int head;
     private int tail;
     private int count;
+    private final OverflowPolicy policy;
     /**
      * To monitor concurrent modification, otherwise throws ConcurrentModificationException.
      */
     private int modCount;
 
+    public enum OverflowPolicy {
+        DROP_NEWEST,
+        GROW,
+        OVERWRITE_OLDEST
+    }
+
     /**
-     * Constructs an empty queue.
+     * Constructs an empty queue, dropping the newest element when full.
      *
-     * @param capacity the maximum capacity of the queue
+     * @param capacity the maximum capacity of the queue, 0 for a queue always full
      */
     public CircularArrayQueue(int capacity) {
+        this(capacity, OverflowPolicy.DROP_NEWEST);
+    }
+
+    /**
+     * Constructs an empty queue.
+     *
+     * @param capacity the initial capacity of the queue, 0 only for DROP_NEWEST(always full)
+     * @param policy   what offer() does when the queue is full
+     */
+    public CircularArrayQueue(int capacity, OverflowPolicy policy) {
+        this.policy = checkNotNull(policy);
+        // GROW can't double 0, OVERWRITE_OLDEST has no oldest to overwrite
+        checkArgument(capacity > 0 || capacity == 0 && policy == OverflowPolicy.DROP_NEWEST,
+                "capacity must be positive, or 0 for DROP_NEWEST.");
         elements = new Object[capacity];
         count = 0;
         head = 0;
@@ -34,25 +75,146 @@ public class CircularArrayQueue<E> extends AbstractQueue<E> {
 
     public boolean offer(E newElement) {
         assert newElement != null;
-        if (count < elements.length) {
-            elements[tail] = newElement;
-            tail = (tail + 1) % elements.length;
-            count++;
-            modCount++;
-            return true;
-        } else
-            return false;
+        if (count == elements.length) {
+            switch (policy) {
+                case GROW:
+                    checkState(elements.length < MAX_CAPACITY, "capacity overflow.");
+                    resize((int) Math.min((long) elements.length * 2, MAX_CAPACITY));
+                    break;
+                case OVERWRITE_OLDEST:
+                    // tail == head, the oldest is overwritten
+                    elements[tail] = newElement;
+                    tail = (tail + 1) % elements.length;
+                    head = tail;
+                    modCount++;
+                    return true;
+                default:
+                    return false;
+            }
+        }
+        elements[tail] = newElement;
+        tail = (tail + 1) % elements.length;
+        count++;
+        modCount++;
+        return true;
     }
 
     public E poll() {
         if (count == 0) return null;
         E r = peek();
+        elements[head] = null;
         head = (head + 1) % elements.length;
         count--;
         modCount++;
         return r;
     }
 
+    /**
+     * Offers src[off, off + len) by at most 2 System.arraycopy, modCount bumped once per batch.
+     * When the queue is full, the same as offer() by the policy:
+     * DROP_NEWEST drops the rest, GROW grows once for all, OVERWRITE_OLDEST keeps the last elements.
+     * Null elements are rejected as offer() before anything is copied, null means empty to poll()/peek().
+     *
+     * @return number of elements offered
+     * @throws NullPointerException if any of src[off, off + len) is null
+     */
+    public int offerAll(E[] src, int off, int len) {
+        checkPositionIndexes(off, off + len, src.length);
+        checkNoNulls(src, off, len);
+        switch (policy) {
+            case GROW:
+                // long, count + len may overflow int
+                long needed = (long) count + len;
+                if (needed > elements.length) {
+                    checkState(needed <= MAX_CAPACITY, "capacity overflow.");
+                    resize((int) Math.max(needed, Math.min((long) elements.length * 2, MAX_CAPACITY)));
+                }
+                break;
+            case OVERWRITE_OLDEST:
+                if (len > elements.length) {
+                    off += len - elements.length;
+                    len = elements.length;
+                }
+                // drop the oldest, their slots will be overwritten
+                int overwritten = Math.max(0, count - (elements.length - len));
+                head = (head + overwritten) % elements.length;
+                count -= overwritten;
+                break;
+            default:
+                len = Math.min(len, elements.length - count);
+        }
+        copyIn(src, off, len);
+        return len;
+    }
+
+    /**
+     * Polls at most max elements into dst from off by at most 2 System.arraycopy, modCount bumped once.
+     *
+     * @return number of elements polled
+     */
+    public int drainTo(E[] dst, int off, int max) {
+        checkPositionIndex(off, dst.length);
+        checkArgument(max >= 0, "max must not be negative.");
+        int n = Math.min(count, Math.min(max, dst.length - off));
+        copyOut(dst, off, n);
+        discard(n);
+        return n;
+    }
+
+    /**
+     * Polls at most max elements into c, copied out once and added by c.addAll(),
+     * removed from the queue only after c.addAll() returns, so nothing is lost if it throws.
+     *
+     * @return number of elements polled
+     */
+    @SuppressWarnings("unchecked")
+    public int drainTo(Collection<? super E> c, int max) {
+        checkArgument(c != this, "cannot drain to itself.");
+        checkArgument(max >= 0, "max must not be negative.");
+        int n = Math.min(count, max);
+        if (n == 0) return 0;
+        Object[] drained = new Object[n];
+        copyOut(drained, 0, n);
+        c.addAll((List<E>) Arrays.asList(drained));
+        discard(n);
+        return n;
+    }
+
+    // copy to tail, there must be room for n elements
+    private void copyIn(Object[] src, int off, int n) {
+        if (n == 0) return;
+        int first = Math.min(n, elements.length - tail);
+        System.arraycopy(src, off, elements, tail, first);
+        System.arraycopy(src, off + first, elements, 0, n - first);
+        tail = (tail + n) % elements.length;
+        count += n;
+        modCount++;
+    }
+
+    static void checkNoNulls(Object[] src, int off, int len) {
+        for (int i = off; i < off + len; i++)
+            if (src[i] == null) throw new NullPointerException("null element at " + i + ".");
+    }
+
+    // copy from head without removing, n <= count
+    private void copyOut(Object[] dst, int off, int n) {
+        if (n == 0) return;
+        int first = Math.min(n, elements.length - head);
+        System.arraycopy(elements, head, dst, off, first);
+        System.arraycopy(elements, 0, dst, off + first, n - first);
+    }
+
+    // remove n elements from head and clear the slots, n <= count
+    private void discard(int n) {
+        if (n == 0) return;
+        int first = Math.min(n, elements.length - head);
+        Arrays.fill(elements, head, head + first, null);
+        Arrays.fill(elements, 0, n - first, null);
+        head = (head + n) % elements.length;
+        count -= n;
+        modCount++;
+    }
+
     @SuppressWarnings("unchecked")
     public E peek() {
         if (count == 0) return null;
@@ -63,11 +225,126 @@ public class CircularArrayQueue<E> extends AbstractQueue<E> {
         return count;
     }
 
+    public int capacity() {
+        return elements.length;
+    }
+
+    public OverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Increases the capacity if necessary, so that it can hold at least minCapacity elements.
+     */
+    public void ensureCapacity(int minCapacity) {
+        checkArgument(minCapacity <= MAX_CAPACITY, "capacity overflow.");
+        if (minCapacity > elements.length) resize(minCapacity);
+    }
+
+    /**
+     * Trims the capacity to the current size(at least 1).
+     */
+    public void trimToSize() {
+        int capacity = Math.max(count, 1);
+        if (capacity < elements.length) resize(capacity);
+    }
+
+    // unwrap-copy: head moved to 0
+    private void resize(int capacity) {
+        Object[] resized = new Object[capacity];
+        int first = Math.min(count, elements.length - head);
+        System.arraycopy(elements, head, resized, 0, first);
+        System.arraycopy(elements, 0, resized, first, count - first);
+        elements = resized;
+        head = 0;
+        tail = count % capacity;
+        modCount++;
+    }
+
+    /**
+     * Copied by at most 2 System.arraycopy instead of the iterator.
+     */
+    @Override
+    public Object[] toArray() {
+        Object[] r = new Object[count];
+        int first = Math.min(count, elements.length - head);
+        System.arraycopy(elements, head, r, 0, first);
+        System.arraycopy(elements, 0, r, first, count - first);
+        return r;
+    }
+
     public Iterator<E> iterator() {
         return new QueueIterator();
 
     }
 
+    /**
+     * SIZED|SUBSIZED|ORDERED|NONNULL, splits the wrapped index range in half, fail-fast.
+     */
+    @Override
+    public Spliterator<E> spliterator() {
+        return new QueueSpliterator(elements, head, 0, count, modCount);
+    }
+
+    private class QueueSpliterator implements Spliterator<E> {
+        private final Object[] array;
+        private final int base;
+        // offsets from base
+        private int origin;
+        private final int fence;
+        private final int expectedModCount;
+
+        QueueSpliterator(Object[] array, int base, int origin, int fence, int expectedModCount) {
+            this.array = array;
+            this.base = base;
+            this.origin = origin;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        private int indexOf(int offset) {
+            int index = base + offset;
+            return index < array.length ? index : index - array.length;
+        }
+
+        @Override
+        public Spliterator<E> trySplit() {
+            int mid = (origin + fence) >>> 1;
+            return origin >= mid ? null :
+                    new QueueSpliterator(array, base, origin, origin = mid, expectedModCount);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean tryAdvance(Consumer<? super E> action) {
+            checkNotNull(action);
+            if (origin >= fence) return false;
+            E e = (E) array[indexOf(origin++)];
+            action.accept(e);
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+            return true;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void forEachRemaining(Consumer<? super E> action) {
+            checkNotNull(action);
+            for (int i = origin; i < fence; i++) action.accept((E) array[indexOf(i)]);
+            origin = fence;
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - origin;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | NONNULL;
+        }
+    }
+
     private class QueueIterator implements Iterator<E> {
         private int offset;
         private int modcountAtConstruction;
@@ -1,24 +1,49 @@
 package veinthrough.api.collection;
 
+import com.google.common.collect.Maps;
 import veinthrough.api._interface.Identifiable;
+import veinthrough.api._interface.IntIdentifiable;
+import veinthrough.api._interface.LongIdentifiable;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.BinaryOperator;
 import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 /**
  * @author veinthrough
  * <p>
  * Generic converting a list to a map:
+ * <pre>
  * 1. non-identifiable + override + retain first/last
  * 2. identifiable + override + retain first/last
  * 3. non-identifiable + list, the same effect:
  * (1) toListedMap(list, keyFunction)
  * (2) Multimaps.index(list, keyFunction)
  * 4. identifiable + list
+ * 5. presized: opt-in by expectedKeys(the number of distinct keys, not elements), no rehashing
+ * 6. parallel: parallelStream() partitioned by fork-join
+ * (1) retain first/last/list: partial maps merged in encounter order, deterministic the same as sequential,
+ *   presized by expectedKeys: each partial map for its share of the keys
+ * (2) retain any: Collectors.toConcurrentMap() into one ConcurrentHashMap, no merging,
+ *   which element retained is not deterministic, presized by expectedKeys
+ * (3) RETAIN_ANY is only for parallel, the others throw IllegalArgumentException
+ * 7. int/long keys: {@link IntKeyMap}/{@link LongKeyMap}, open addressing without boxing the keys,
+ *   retain first/last/list the same as 1.~4.
+ * 8. frozen: {@link FrozenMap}, read-only perfect hashing map built once for the hot path
+ * 9. columnar list: {@link ColumnarIndex}, sorted keys + offsets + permutation arrays(CSR)
+ *   instead of an ArrayList per key, List views per key
+ * 10. live: {@link LiveIndex}, updated by add/remove/update deltas instead of rebuilt, retain first/last
  * </pre>
  */
 public class CollectionToMap {
@@ -26,6 +51,7 @@ public class CollectionToMap {
     public static <K, T> Map<K, T> toUniqueMap(Collection<T> collection,
                                                Function<? super T, ? extends K> keyFunction,
                                                RETAIN_MANNER manner) {
+        checkOrdered(manner);
         return collection.stream()
                 .collect(
                         Collectors.toMap(
@@ -36,19 +62,29 @@ public class CollectionToMap {
                 );
     }
 
-    // 2. identifiable + override + retain first/last
-    public static <K, T extends Identifiable<K>> Map<K, T> toUniqueMap(Collection<T> collection,
-                                                                       RETAIN_MANNER manner) {
+    // 1., 5. presized for expectedKeys
+    public static <K, T> Map<K, T> toUniqueMap(Collection<T> collection,
+                                               Function<? super T, ? extends K> keyFunction,
+                                               RETAIN_MANNER manner,
+                                               int expectedKeys) {
+        checkOrdered(manner);
         return collection.stream()
                 .collect(
                         Collectors.toMap(
-                                T::getIdentifier,
+                                keyFunction,
                                 Function.identity(),
-                                retainFunction(manner)
+                                retainFunction(manner),
+                                () -> Maps.newHashMapWithExpectedSize(expectedKeys)
                         )
                 );
     }
 
+    // 2. identifiable + override + retain first/last
+    public static <K, T extends Identifiable<K>> Map<K, T> toUniqueMap(Collection<T> collection,
+                                                                       RETAIN_MANNER manner) {
+        return toUniqueMap(collection, T::getIdentifier, manner);
+    }
+
     // 3. non-identifiable + list
     // Can also use Multimap of Guava
     // The same effect:
@@ -60,20 +96,240 @@ public class CollectionToMap {
                 .collect(Collectors.groupingBy(keyFunction));
     }
 
+    // 3., 5. presized for expectedKeys
+    public static <K, T> Map<K, List<T>> toListedMap(Collection<T> collection,
+                                                     Function<? super T, ? extends K> keyFunction,
+                                                     int expectedKeys) {
+        return collection.stream()
+                .collect(Collectors.groupingBy(
+                        keyFunction,
+                        () -> Maps.newHashMapWithExpectedSize(expectedKeys),
+                        Collectors.toList()));
+    }
+
     // 4. identifiable + list
     public static <K, T extends Identifiable<K>> Map<K, List<T>> toListedMap(Collection<T> collection) {
-        return collection.stream()
-                .collect(Collectors.groupingBy(T::getIdentifier));
+        return toListedMap(collection, T::getIdentifier);
+    }
+
+    // 6. parallel, non-identifiable + override + retain first/last/any
+    public static <K, T> Map<K, T> parallelToUniqueMap(Collection<T> collection,
+                                                       Function<? super T, ? extends K> keyFunction,
+                                                       RETAIN_MANNER manner) {
+        return manner == RETAIN_MANNER.RETAIN_ANY ?
+                collection.parallelStream()
+                        .collect(
+                                Collectors.toConcurrentMap(
+                                        keyFunction,
+                                        Function.identity(),
+                                        retainFunction(manner)
+                                )
+                        ) :
+                // partial maps are merged in encounter order
+                collection.parallelStream()
+                        .collect(
+                                Collectors.toMap(
+                                        keyFunction,
+                                        Function.identity(),
+                                        retainFunction(manner)
+                                )
+                        );
+    }
+
+    // 6., 5. parallel presized for expectedKeys
+    public static <K, T> Map<K, T> parallelToUniqueMap(Collection<T> collection,
+                                                       Function<? super T, ? extends K> keyFunction,
+                                                       RETAIN_MANNER manner,
+                                                       int expectedKeys) {
+        int partialKeys = partialKeys(expectedKeys);
+        return manner == RETAIN_MANNER.RETAIN_ANY ?
+                collection.parallelStream()
+                        .collect(
+                                Collectors.toConcurrentMap(
+                                        keyFunction,
+                                        Function.identity(),
+                                        retainFunction(manner),
+                                        () -> new ConcurrentHashMap<>(expectedKeys)
+                                )
+                        ) :
+                collection.parallelStream()
+                        .collect(
+                                Collectors.toMap(
+                                        keyFunction,
+                                        Function.identity(),
+                                        retainFunction(manner),
+                                        () -> Maps.newHashMapWithExpectedSize(partialKeys)
+                                )
+                        );
+    }
+
+    // 6. parallel, identifiable + override + retain first/last/any
+    public static <K, T extends Identifiable<K>> Map<K, T> parallelToUniqueMap(Collection<T> collection,
+                                                                               RETAIN_MANNER manner) {
+        return parallelToUniqueMap(collection, T::getIdentifier, manner);
+    }
+
+    // 6. parallel, non-identifiable + list, lists in encounter order
+    public static <K, T> Map<K, List<T>> parallelToListedMap(Collection<T> collection,
+                                                             Function<? super T, ? extends K> keyFunction) {
+        return collection.parallelStream()
+                .collect(Collectors.groupingBy(keyFunction));
+    }
+
+    // 6., 5. parallel presized for expectedKeys
+    public static <K, T> Map<K, List<T>> parallelToListedMap(Collection<T> collection,
+                                                             Function<? super T, ? extends K> keyFunction,
+                                                             int expectedKeys) {
+        int partialKeys = partialKeys(expectedKeys);
+        return collection.parallelStream()
+                .collect(Collectors.groupingBy(
+                        keyFunction,
+                        () -> Maps.newHashMapWithExpectedSize(partialKeys),
+                        Collectors.toList()));
+    }
+
+    // 6.(1) a partial map per leaf task, parallelism << 2 leaves as java.util.stream.AbstractTask,
+    // not presized for all expectedKeys, or each leaf would allocate a table for all the keys
+    private static int partialKeys(int expectedKeys) {
+        checkArgument(expectedKeys >= 0, "expectedKeys must not be negative.");
+        int leaves = ForkJoinPool.getCommonPoolParallelism() << 2;
+        return (expectedKeys + leaves - 1) / leaves;
+    }
+
+    // 6. parallel, identifiable + list, lists in encounter order
+    public static <K, T extends Identifiable<K>> Map<K, List<T>> parallelToListedMap(Collection<T> collection) {
+        return parallelToListedMap(collection, T::getIdentifier);
+    }
+
+    // 7. int keys + override + retain first/last
+    public static <T> IntKeyMap<T> toUniqueIntMap(Collection<T> collection,
+                                                  ToIntFunction<? super T> keyFunction,
+                                                  RETAIN_MANNER manner) {
+        checkOrdered(manner);
+        IntKeyMap<T> map = new IntKeyMap<>(collection.size());
+        for (T element : collection) {
+            if (manner == RETAIN_MANNER.RETAIN_LAST) map.put(keyFunction.applyAsInt(element), element);
+            else map.putIfAbsent(keyFunction.applyAsInt(element), element);
+        }
+        return map;
+    }
+
+    // 7. int identifiable + override + retain first/last
+    public static <T extends IntIdentifiable> IntKeyMap<T> toUniqueIntMap(Collection<T> collection,
+                                                                          RETAIN_MANNER manner) {
+        return toUniqueIntMap(collection, T::getIntIdentifier, manner);
+    }
+
+    // 7. long keys + override + retain first/last
+    public static <T> LongKeyMap<T> toUniqueLongMap(Collection<T> collection,
+                                                    ToLongFunction<? super T> keyFunction,
+                                                    RETAIN_MANNER manner) {
+        checkOrdered(manner);
+        LongKeyMap<T> map = new LongKeyMap<>(collection.size());
+        for (T element : collection) {
+            if (manner == RETAIN_MANNER.RETAIN_LAST) map.put(keyFunction.applyAsLong(element), element);
+            else map.putIfAbsent(keyFunction.applyAsLong(element), element);
+        }
+        return map;
+    }
+
+    // 7. long identifiable + override + retain first/last
+    public static <T extends LongIdentifiable> LongKeyMap<T> toUniqueLongMap(Collection<T> collection,
+                                                                             RETAIN_MANNER manner) {
+        return toUniqueLongMap(collection, T::getLongIdentifier, manner);
+    }
+
+    // 7. int keys + list
+    public static <T> IntKeyMap<List<T>> toListedIntMap(Collection<T> collection,
+                                                        ToIntFunction<? super T> keyFunction) {
+        IntKeyMap<List<T>> map = new IntKeyMap<>(collection.size());
+        for (T element : collection)
+            map.computeIfAbsent(keyFunction.applyAsInt(element), key -> new ArrayList<>()).add(element);
+        return map;
+    }
+
+    // 7. int identifiable + list
+    public static <T extends IntIdentifiable> IntKeyMap<List<T>> toListedIntMap(Collection<T> collection) {
+        return toListedIntMap(collection, T::getIntIdentifier);
+    }
+
+    // 7. long keys + list
+    public static <T> LongKeyMap<List<T>> toListedLongMap(Collection<T> collection,
+                                                          ToLongFunction<? super T> keyFunction) {
+        LongKeyMap<List<T>> map = new LongKeyMap<>(collection.size());
+        for (T element : collection)
+            map.computeIfAbsent(keyFunction.applyAsLong(element), key -> new ArrayList<>()).add(element);
+        return map;
+    }
+
+    // 7. long identifiable + list
+    public static <T extends LongIdentifiable> LongKeyMap<List<T>> toListedLongMap(Collection<T> collection) {
+        return toListedLongMap(collection, T::getLongIdentifier);
+    }
+
+    // 8. non-identifiable + override + retain first/last, frozen
+    public static <K, T> FrozenMap<K, T> toFrozenMap(Collection<T> collection,
+                                                     Function<? super T, ? extends K> keyFunction,
+                                                     RETAIN_MANNER manner) {
+        return FrozenMap.copyOf(toUniqueMap(collection, keyFunction, manner));
+    }
+
+    // 8. identifiable + override + retain first/last, frozen
+    public static <K, T extends Identifiable<K>> FrozenMap<K, T> toFrozenMap(Collection<T> collection,
+                                                                             RETAIN_MANNER manner) {
+        return FrozenMap.copyOf(toUniqueMap(collection, manner));
+    }
+
+    // 9. non-identifiable + columnar list, keys in natural order
+    public static <K extends Comparable<? super K>, T> ColumnarIndex<K, T> toColumnarMap(
+            Collection<T> collection,
+            Function<? super T, ? extends K> keyFunction) {
+        return ColumnarIndex.of(collection, keyFunction);
+    }
+
+    // 9. non-identifiable + columnar list, keys in the order of comparator
+    public static <K, T> ColumnarIndex<K, T> toColumnarMap(Collection<T> collection,
+                                                           Function<? super T, ? extends K> keyFunction,
+                                                           Comparator<? super K> comparator) {
+        return ColumnarIndex.of(collection, keyFunction, comparator);
+    }
+
+    // 9. identifiable + columnar list
+    public static <K extends Comparable<? super K>, T extends Identifiable<K>> ColumnarIndex<K, T> toColumnarMap(
+            Collection<T> collection) {
+        return ColumnarIndex.of(collection, T::getIdentifier);
+    }
+
+    // 10. non-identifiable + override + retain first/last, live
+    public static <K, T> LiveIndex<K, T> toLiveIndex(Collection<T> collection,
+                                                     Function<? super T, ? extends K> keyFunction,
+                                                     RETAIN_MANNER manner) {
+        return LiveIndex.of(collection, keyFunction, manner);
+    }
+
+    // 10. identifiable + override + retain first/last, live
+    public static <K, T extends Identifiable<K>> LiveIndex<K, T> toLiveIndex(Collection<T> collection,
+                                                                             RETAIN_MANNER manner) {
+        return LiveIndex.of(collection, manner);
+    }
+
+    // 6.(3)
+    static RETAIN_MANNER checkOrdered(RETAIN_MANNER manner) {
+        checkArgument(manner != RETAIN_MANNER.RETAIN_ANY, "RETAIN_ANY is only for parallel.");
+        return manner;
     }
 
     private static <K> BinaryOperator<K> retainFunction(RETAIN_MANNER manner) {
-        return manner == RETAIN_MANNER.RETAIN_FIRST ?
-                (k1, k2) -> k1 :
-                (k1, k2) -> k2;
+        return manner == RETAIN_MANNER.RETAIN_LAST ?
+                (k1, k2) -> k2 :
+                (k1, k2) -> k1;
     }
 
     public enum RETAIN_MANNER {
         RETAIN_FIRST,
-        RETAIN_LAST
+        RETAIN_LAST,
+        // only for parallelToUniqueMap(), the fastest without deterministic order,
+        // IllegalArgumentException elsewhere
+        RETAIN_ANY
     }
 }
@@ -0,0 +1,186 @@
+package veinthrough.api.collection;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkElementIndex;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * @author veinthrough
+ * <p>
+ * A read-only grouping of elements by key, columnar(CSR, compressed sparse row) instead of an ArrayList per key:
+ * <pre>
+ * 1. layout:
+ *   (1) keys: the distinct keys sorted
+ *   (2) offsets: group g is permutation[offsets[g], offsets[g + 1])
+ *   (3) permutation: indexes of elements, grouped by key, encounter order in a group
+ *   (4) elements: the elements in encounter order
+ *   4 arrays for all groups, about 8 bytes per element + 8 bytes per key
+ * 2. get(key): binary search in keys, returns a RandomAccess List view, no list materialized
+ * 3. a Map of key to List view, iterated in key order, equals to the Map by toListedMap() with the same groups
+ * 4. immutable: put()/remove() throw UnsupportedOperationException
+ * </pre>
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class ColumnarIndex<K, T> extends AbstractMap<K, List<T>> {
+    private final Object[] keys;
+    private final int[] offsets;
+    private final int[] permutation;
+    private final Object[] elements;
+    private final Comparator<? super K> comparator;
+
+    @SuppressWarnings("unchecked")
+    private ColumnarIndex(Collection<T> collection,
+                          Function<? super T, ? extends K> keyFunction,
+                          Comparator<? super K> comparator) {
+        this.comparator = checkNotNull(comparator);
+        elements = collection.toArray();
+        int n = elements.length;
+        // distinct keys
+        Object[] keyOf = new Object[n];
+        Map<K, Integer> groupOf = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            K key = checkNotNull(keyFunction.apply((T) elements[i]));
+            keyOf[i] = key;
+            groupOf.putIfAbsent(key, 0);
+        }
+        keys = groupOf.keySet().toArray();
+        Arrays.sort(keys, (k1, k2) -> comparator.compare((K) k1, (K) k2));
+        for (int g = 0; g < keys.length; g++) groupOf.put((K) keys[g], g);
+        // counting sort of the elements by group, stable
+        int[] groups = new int[n];
+        offsets = new int[keys.length + 1];
+        for (int i = 0; i < n; i++) offsets[(groups[i] = groupOf.get(keyOf[i])) + 1]++;
+        for (int g = 0; g < keys.length; g++) offsets[g + 1] += offsets[g];
+        int[] fill = Arrays.copyOf(offsets, keys.length);
+        permutation = new int[n];
+        for (int i = 0; i < n; i++) permutation[fill[groups[i]]++] = i;
+    }
+
+    /**
+     * Groups the elements by the keys in natural order.
+     */
+    public static <K extends Comparable<? super K>, T> ColumnarIndex<K, T> of(
+            Collection<T> collection, Function<? super T, ? extends K> keyFunction) {
+        return new ColumnarIndex<>(collection, keyFunction, Comparator.naturalOrder());
+    }
+
+    /**
+     * Groups the elements by the keys in the order of comparator.
+     */
+    public static <K, T> ColumnarIndex<K, T> of(Collection<T> collection,
+                                                Function<? super T, ? extends K> keyFunction,
+                                                Comparator<? super K> comparator) {
+        return new ColumnarIndex<>(collection, keyFunction, comparator);
+    }
+
+    /**
+     * @return group index of the key, negative if absent
+     */
+    @SuppressWarnings("unchecked")
+    public int groupOf(Object key) {
+        if (key == null) return -1;
+        try {
+            return Arrays.binarySearch(keys, key, (k1, k2) -> comparator.compare((K) k1, (K) k2));
+        } catch (ClassCastException e) {
+            return -1;
+        }
+    }
+
+    public int groupCount() {
+        return keys.length;
+    }
+
+    @SuppressWarnings("unchecked")
+    public K keyAt(int group) {
+        checkElementIndex(group, keys.length);
+        return (K) keys[group];
+    }
+
+    public List<T> groupAt(int group) {
+        checkElementIndex(group, keys.length);
+        return new Group(offsets[group], offsets[group + 1]);
+    }
+
+    @Override
+    public List<T> get(Object key) {
+        int group = groupOf(key);
+        return group < 0 ? null : new Group(offsets[group], offsets[group + 1]);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return groupOf(key) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return keys.length;
+    }
+
+    @Override
+    public Set<Entry<K, List<T>>> entrySet() {
+        return new AbstractSet<Entry<K, List<T>>>() {
+            @Override
+            public Iterator<Entry<K, List<T>>> iterator() {
+                return new Iterator<Entry<K, List<T>>>() {
+                    private int group;
+
+                    @Override
+                    public boolean hasNext() {
+                        return group < keys.length;
+                    }
+
+                    @Override
+                    public Entry<K, List<T>> next() {
+                        if (!hasNext()) throw new NoSuchElementException();
+                        Entry<K, List<T>> entry = new SimpleImmutableEntry<>(keyAt(group), groupAt(group));
+                        group++;
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return keys.length;
+            }
+        };
+    }
+
+    // view of permutation[from, to)
+    private class Group extends AbstractList<T> implements RandomAccess {
+        private final int from;
+        private final int to;
+
+        Group(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            checkElementIndex(index, to - from);
+            return (T) elements[permutation[from + index]];
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+}
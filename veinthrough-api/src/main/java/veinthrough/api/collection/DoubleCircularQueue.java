@@ -0,0 +1,132 @@
+package veinthrough.api.collection;
+
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * @author veinthrough
+ * <p>
+ * A first-in, first-out bounded collection of double, without boxing.
+ * The same circular array as {@link CircularArrayQueue}, but double[] instead of Object[]:
+ * <pre>
+ * 1. offerDouble()/pollDouble()/peekDouble(): no Double allocated
+ * 2. pollDouble()/peekDouble() throw NoSuchElementException if empty, as there is no null for double
+ * 3. drainTo(double[]): bulk poll by at most 2 System.arraycopy
+ * 4. iterator(): PrimitiveIterator.OfDouble, fail-fast the same as CircularArrayQueue
+ * 5. not thread-safe
+ * </pre>
+ */
+@SuppressWarnings({"unused", "WeakerAccess", "Duplicates"})
+public class DoubleCircularQueue {
+    private final double[] elements;
+    private int head;
+    private int tail;
+    private int count;
+    /**
+     * To monitor concurrent modification, otherwise throws ConcurrentModificationException.
+     */
+    private int modCount;
+
+    /**
+     * Constructs an empty queue.
+     *
+     * @param capacity the maximum capacity of the queue
+     */
+    public DoubleCircularQueue(int capacity) {
+        checkArgument(capacity > 0, "capacity must be positive.");
+        elements = new double[capacity];
+    }
+
+    public boolean offerDouble(double newElement) {
+        if (count == elements.length) return false;
+        elements[tail] = newElement;
+        if (++tail == elements.length) tail = 0;
+        count++;
+        modCount++;
+        return true;
+    }
+
+    public double pollDouble() {
+        double r = peekDouble();
+        if (++head == elements.length) head = 0;
+        count--;
+        modCount++;
+        return r;
+    }
+
+    public double peekDouble() {
+        if (count == 0) throw new NoSuchElementException();
+        return elements[head];
+    }
+
+    /**
+     * Poll all elements into dst, at most dst.length.
+     *
+     * @return number of elements polled
+     */
+    public int drainTo(double[] dst) {
+        int n = Math.min(count, dst.length);
+        if (n == 0) return 0;
+        int first = Math.min(n, elements.length - head);
+        System.arraycopy(elements, head, dst, 0, first);
+        System.arraycopy(elements, 0, dst, first, n - first);
+        head = (head + n) % elements.length;
+        count -= n;
+        modCount++;
+        return n;
+    }
+
+    public void clear() {
+        head = tail = count = 0;
+        modCount++;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public int capacity() {
+        return elements.length;
+    }
+
+    public PrimitiveIterator.OfDouble iterator() {
+        return new QueueIterator();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (PrimitiveIterator.OfDouble it = iterator(); it.hasNext(); ) {
+            sb.append(it.nextDouble());
+            if (it.hasNext()) sb.append(", ");
+        }
+        return sb.append(']').toString();
+    }
+
+    private class QueueIterator implements PrimitiveIterator.OfDouble {
+        private int offset;
+        private final int modcountAtConstruction = modCount;
+
+        @Override
+        public double nextDouble() {
+            if (!hasNext()) throw new NoSuchElementException();
+            int index = head + offset++;
+            return elements[index < elements.length ? index : index - elements.length];
+        }
+
+        @Override
+        public boolean hasNext() {
+            // ConcurrentModificationException
+            if (modCount != modcountAtConstruction)
+                throw new ConcurrentModificationException();
+            return offset < count;
+        }
+    }
+}
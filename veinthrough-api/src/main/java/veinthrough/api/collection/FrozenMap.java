@@ -0,0 +1,254 @@
+package veinthrough.api.collection;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * @author veinthrough
+ * <p>
+ * A read-only map built once and read on the hot path, by CHD(compress, hash and displace) perfect hashing:
+ * <pre>
+ * 1. layout: Object[] table of interleaved key/value(load factor 0.9) + int[] displacements(1 per 4 keys),
+ *   no Entry per key as HashMap
+ * 2. build:
+ *   (1) keys are hashed into buckets, about 4 keys per bucket
+ *   (2) from the largest bucket, find the displacement d for each bucket,
+ *     so that all its keys fall into free slots by slot(hashCode, d)
+ *   (3) keys sharing the same hashCode can't be displaced apart, they are kept in a small HashMap overflow
+ *   (4) d tried up to MAX_DISPLACEMENT, keys of a bucket still not fitting(e.g. adversarial hashCodes
+ *     falling into the same slots) are kept in the overflow too, so the build always ends
+ * 3. get(): 1 read of displacements + 1 slot, equals() once, no probing
+ * 4. buildNanos()/footprint(): time of build, bytes of the arrays(keys/values themselves not included)
+ * 5. immutable: put()/remove() throw UnsupportedOperationException, null keys/values are not allowed
+ * </pre>
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class FrozenMap<K, V> extends AbstractMap<K, V> {
+    private static final double LOAD_FACTOR = 0.9;
+    private static final int KEYS_PER_BUCKET = 4;
+    private static final int GOLDEN = 0x9E3779B9;
+    // a bucket of 1 key in a table 90% full fails 4096 tries with probability 0.9^4096
+    private static final int MAX_DISPLACEMENT = 4096;
+
+    // key at 2 * slot, value at 2 * slot + 1, in the same cache line
+    private final Object[] table;
+    private final int capacity;
+    private final int[] displacements;
+    // keys with shared hashCode or not displaced, null if none
+    private final Map<K, V> overflow;
+    private final int size;
+    private final long buildNanos;
+
+    private FrozenMap(Map<? extends K, ? extends V> map) {
+        long start = System.nanoTime();
+        // 2.(3) keys with shared hashCode to overflow, found by sorting the hashCodes
+        int[] hashCodes = new int[map.size()];
+        int i = 0;
+        for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            checkNotNull(entry.getValue());
+            hashCodes[i++] = checkNotNull(entry.getKey()).hashCode();
+        }
+        Arrays.sort(hashCodes);
+        Set<Integer> sharedHashCodes = new HashSet<>();
+        for (i = 1; i < hashCodes.length; i++)
+            if (hashCodes[i] == hashCodes[i - 1]) sharedHashCodes.add(hashCodes[i]);
+        Map<K, V> shared = new HashMap<>();
+        int n = map.size();
+        Object[] ks = new Object[n];
+        Object[] vs = new Object[n];
+        i = 0;
+        for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            if (!sharedHashCodes.isEmpty() && sharedHashCodes.contains(entry.getKey().hashCode())) {
+                shared.put(entry.getKey(), entry.getValue());
+            } else {
+                ks[i] = entry.getKey();
+                vs[i++] = entry.getValue();
+            }
+        }
+
+        capacity = Math.max(1, (int) Math.ceil(i / LOAD_FACTOR));
+        table = new Object[capacity * 2];
+        displacements = new int[Math.max(1, (i + KEYS_PER_BUCKET - 1) / KEYS_PER_BUCKET)];
+        place(ks, vs, i, shared);
+        overflow = shared.isEmpty() ? null : shared;
+        size = n;
+        buildNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * A frozen copy of the map.
+     */
+    public static <K, V> FrozenMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+        return new FrozenMap<>(map);
+    }
+
+    // 2.(1), 2.(2), 2.(4)
+    @SuppressWarnings("unchecked")
+    private void place(Object[] ks, Object[] vs, int n, Map<K, V> shared) {
+        int buckets = displacements.length;
+        // counting sort the keys by bucket
+        int[] bucketOf = new int[n];
+        int[] start = new int[buckets + 1];
+        for (int i = 0; i < n; i++) start[(bucketOf[i] = bucket(ks[i].hashCode(), buckets)) + 1]++;
+        int maxBucketSize = 0;
+        for (int b = 0; b < buckets; b++) {
+            maxBucketSize = Math.max(maxBucketSize, start[b + 1]);
+            start[b + 1] += start[b];
+        }
+        int[] members = new int[n];
+        int[] fill = Arrays.copyOf(start, buckets);
+        for (int i = 0; i < n; i++) members[fill[bucketOf[i]]++] = i;
+        // buckets ordered by size descending, counting sort again
+        int[] bySize = new int[maxBucketSize + 2];
+        for (int b = 0; b < buckets; b++) bySize[maxBucketSize - (start[b + 1] - start[b]) + 1]++;
+        for (int s = 0; s <= maxBucketSize; s++) bySize[s + 1] += bySize[s];
+        int[] order = new int[buckets];
+        for (int b = 0; b < buckets; b++) order[bySize[maxBucketSize - (start[b + 1] - start[b])]++] = b;
+
+        // free slots checked in a bitset small enough for the cache, instead of the table
+        long[] occupied = new long[(capacity + 63) >>> 6];
+        int[] slots = new int[maxBucketSize];
+        for (int b : order) {
+            int from = start[b], to = start[b + 1];
+            if (from == to) continue;
+            int d = 0;
+            while (d < MAX_DISPLACEMENT && !fits(ks, members, from, to, d, occupied, slots)) d++;
+            if (d < MAX_DISPLACEMENT) {
+                displacements[b] = d;
+                for (int m = from; m < to; m++) {
+                    occupied[slots[m - from] >>> 6] |= 1L << slots[m - from];
+                    table[slots[m - from] * 2] = ks[members[m]];
+                    table[slots[m - from] * 2 + 1] = vs[members[m]];
+                }
+            } else {
+                // get() misses the slot of displacement 0 by equals() and falls back to the overflow
+                for (int m = from; m < to; m++) shared.put((K) ks[members[m]], (V) vs[members[m]]);
+            }
+        }
+    }
+
+    // all keys of the bucket fall into different free slots
+    private boolean fits(Object[] ks, int[] members, int from, int to, int d, long[] occupied, int[] slots) {
+        for (int m = from; m < to; m++) {
+            int slot = slot(ks[members[m]].hashCode(), d, capacity);
+            if ((occupied[slot >>> 6] & (1L << slot)) != 0) return false;
+            for (int j = 0; j < m - from; j++) if (slots[j] == slot) return false;
+            slots[m - from] = slot;
+        }
+        return true;
+    }
+
+    // murmur3 fmix32
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    // maps the 32 bits hash to [0, n) by multiply-shift instead of %
+    private static int reduce(int hash, int n) {
+        return (int) (((hash & 0xffffffffL) * n) >>> 32);
+    }
+
+    private static int bucket(int hashCode, int buckets) {
+        return reduce(mix(hashCode), buckets);
+    }
+
+    private static int slot(int hashCode, int d, int length) {
+        return reduce(mix(hashCode + d * GOLDEN + GOLDEN), length);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        if (key == null) return null;
+        int h = key.hashCode();
+        int slot = slot(h, displacements[bucket(h, displacements.length)], capacity) * 2;
+        Object k = table[slot];
+        if (k != null && (k == key || k.equals(key))) return (V) table[slot + 1];
+        return overflow == null ? null : overflow.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return nanoseconds taken to build
+     */
+    public long buildNanos() {
+        return buildNanos;
+    }
+
+    /**
+     * Bytes of the arrays(compressed references, 16 bytes array header) and the overflow,
+     * keys and values themselves not included.
+     */
+    public long footprint() {
+        long bytes = 2 * 16 + 4L * (table.length + displacements.length);
+        // HashMap: table + 32 bytes per Entry
+        if (overflow != null) bytes += 48 + 4L * overflow.size() * 2 + 32L * overflow.size();
+        return bytes;
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<Entry<K, V>>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private class EntryIterator implements Iterator<Entry<K, V>> {
+        private int next = advance(0);
+        private final Iterator<Entry<K, V>> overflowIterator =
+                overflow == null ? null : overflow.entrySet().iterator();
+
+        private int advance(int from) {
+            while (from < capacity && table[from * 2] == null) from++;
+            return from;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < capacity || (overflowIterator != null && overflowIterator.hasNext());
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Entry<K, V> next() {
+            if (next < capacity) {
+                Entry<K, V> entry = new SimpleImmutableEntry<>((K) table[next * 2], (V) table[next * 2 + 1]);
+                next = advance(next + 1);
+                return entry;
+            }
+            if (overflowIterator == null) throw new NoSuchElementException();
+            return new SimpleImmutableEntry<>(overflowIterator.next());
+        }
+    }
+}
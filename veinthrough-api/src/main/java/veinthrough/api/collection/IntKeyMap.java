@@ -0,0 +1,213 @@
+package veinthrough.api.collection;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * @author veinthrough
+ * <p>
+ * A map of int key to non-null value, without boxing the keys.
+ * Open addressing with linear probing in 2 parallel arrays, instead of HashMap's Entry per key:
+ * <pre>
+ * 1. layout: int[] keys + Object[] values, capacity is power of 2,
+ *   empty slot: values[i] == null, so null values are not allowed
+ *   about 10~21 bytes per entry(4 + reference, load factor 0.375~0.75), HashMap<Integer, V> about 48
+ * 2. get()/put()/containsKey(): probe from mix(key) & mask until the key or an empty slot
+ * 3. remove(): backward shift deletion, no tombstones
+ * 4. resize: capacity doubled when size exceeds 0.75 * capacity
+ * 5. not thread-safe
+ * </pre>
+ *
+ * @see LongKeyMap
+ */
+@SuppressWarnings({"unused", "WeakerAccess", "Duplicates"})
+public class IntKeyMap<V> {
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private int[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+    private int threshold;
+
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+        void accept(int key, V value);
+    }
+
+    public IntKeyMap() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize no resizing until expectedSize entries
+     */
+    public IntKeyMap(int expectedSize) {
+        checkArgument(expectedSize >= 0, "expectedSize must not be negative.");
+        allocate(capacityFor(expectedSize));
+    }
+
+    private static int capacityFor(int expectedSize) {
+        long capacity = Long.highestOneBit(Math.max((long) Math.ceil(expectedSize / LOAD_FACTOR), 2) - 1) << 1;
+        checkArgument(capacity <= MAX_CAPACITY, "capacity overflow.");
+        return (int) capacity;
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    // murmur3 fmix32, spreads sequential ids over the table
+    private static int mix(int key) {
+        int h = key;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    // slot of the key, or the empty slot where it would be
+    private int slotOf(int key) {
+        int i = mix(key) & mask;
+        while (values[i] != null && keys[i] != key) i = (i + 1) & mask;
+        return i;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(int key) {
+        return values[slotOf(key)] != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        return (V) values[slotOf(key)];
+    }
+
+    public V getOrDefault(int key, V defaultValue) {
+        V value = get(key);
+        return value == null ? defaultValue : value;
+    }
+
+    /**
+     * @return the previous value, null if absent
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        checkNotNull(value);
+        int i = slotOf(key);
+        V previous = (V) values[i];
+        if (previous == null) {
+            if (size == threshold) {
+                resize();
+                i = slotOf(key);
+            }
+            keys[i] = key;
+            size++;
+        }
+        values[i] = value;
+        return previous;
+    }
+
+    /**
+     * @return the existing value, null if absent and value is put
+     */
+    @SuppressWarnings("unchecked")
+    public V putIfAbsent(int key, V value) {
+        V existing = get(key);
+        if (existing == null) put(key, value);
+        return existing;
+    }
+
+    public V computeIfAbsent(int key, IntFunction<? extends V> mappingFunction) {
+        V value = get(key);
+        if (value == null) {
+            value = checkNotNull(mappingFunction.apply(key));
+            put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * @return the removed value, null if absent
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int i = slotOf(key);
+        V removed = (V) values[i];
+        if (removed == null) return null;
+        // backward shift: move back the following entries which can't be reached over the hole
+        int hole = i;
+        for (int j = (i + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+            int home = mix(keys[j]) & mask;
+            // home is not cyclically in (hole, j]
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+        values[hole] = null;
+        size--;
+        return removed;
+    }
+
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryConsumer<? super V> action) {
+        checkNotNull(action);
+        for (int i = 0; i < values.length; i++)
+            if (values[i] != null) action.accept(keys[i], (V) values[i]);
+    }
+
+    public int[] keys() {
+        int[] r = new int[size];
+        int n = 0;
+        for (int i = 0; i < values.length; i++)
+            if (values[i] != null) r[n++] = keys[i];
+        return r;
+    }
+
+    private void resize() {
+        checkArgument(keys.length < MAX_CAPACITY, "capacity overflow.");
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(keys.length << 1);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int j = slotOf(oldKeys[i]);
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        forEach((key, value) -> {
+            if (sb.length() > 1) sb.append(", ");
+            sb.append(key).append('=').append(value);
+        });
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,205 @@
+package veinthrough.api.collection;
+
+import veinthrough.api._interface.Identifiable;
+import veinthrough.api.collection.CollectionToMap.RETAIN_MANNER;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * @author veinthrough
+ * <p>
+ * A unique index of a collection which changes slowly, updated by deltas instead of rebuilt by
+ * {@link CollectionToMap#toUniqueMap}:
+ * <pre>
+ * 1. add(element): appended to the end of the collection
+ *    remove(element): removed by equals()
+ *    update(old, new): new replaces the first old in place, the key may change
+ * 2. retain first/last the same as toUniqueMap() over the collection, RETAIN_ANY not allowed:
+ *   (1) every element has a sequence number of its position, update() keeps the sequence
+ *   (2) candidates of a key are sorted by sequence, the first/last is retained,
+ *     the next one is retained when the retained one is removed
+ * 3. readers without lock:
+ *   (1) get()/containsKey()/size(): from a ConcurrentHashMap of the retained elements, consistent per key
+ *   (2) snapshot(): an unmodifiable point-in-time copy, consistent over all keys,
+ *     copied under the writers' lock and shared until the next delta
+ * 4. writers are synchronized, a delta costs O(candidates of the key)
+ * 5. null elements and null keys are rejected by NullPointerException, unlike toUniqueMap() which accepts a null key,
+ *   the index is not changed
+ * </pre>
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class LiveIndex<K, T> {
+    private final Function<? super T, ? extends K> keyFunction;
+    private final RETAIN_MANNER manner;
+    // guarded by this
+    private final Map<K, List<Candidate<T>>> candidates = new HashMap<>();
+    private long nextSequence;
+    // retained element per key, for readers
+    private final ConcurrentHashMap<K, T> retained;
+    private volatile long version;
+    // null if changed since the last snapshot()
+    private volatile Map<K, T> snapshot;
+
+    private static class Candidate<T> {
+        private final long sequence;
+        private final T element;
+
+        Candidate(long sequence, T element) {
+            this.sequence = sequence;
+            this.element = element;
+        }
+    }
+
+    private LiveIndex(Collection<T> collection,
+                      Function<? super T, ? extends K> keyFunction,
+                      RETAIN_MANNER manner) {
+        this.keyFunction = checkNotNull(keyFunction);
+        this.manner = CollectionToMap.checkOrdered(checkNotNull(manner));
+        retained = new ConcurrentHashMap<>(collection.size());
+        for (T element : collection) add(element);
+        version = 0;
+    }
+
+    /**
+     * An index of the collection by keyFunction, retain first/last.
+     */
+    public static <K, T> LiveIndex<K, T> of(Collection<T> collection,
+                                            Function<? super T, ? extends K> keyFunction,
+                                            RETAIN_MANNER manner) {
+        return new LiveIndex<>(collection, keyFunction, manner);
+    }
+
+    /**
+     * An index of the identifiable collection, retain first/last.
+     */
+    public static <K, T extends Identifiable<K>> LiveIndex<K, T> of(Collection<T> collection,
+                                                                    RETAIN_MANNER manner) {
+        return new LiveIndex<>(collection, T::getIdentifier, manner);
+    }
+
+    /**
+     * Appends the element to the end of the collection.
+     */
+    public synchronized void add(T element) {
+        K key = keyOf(checkNotNull(element));
+        candidates.computeIfAbsent(key, k -> new ArrayList<>(1))
+                .add(new Candidate<>(nextSequence++, element));
+        retain(key);
+        changed();
+    }
+
+    /**
+     * Removes the first candidate equal to the element.
+     *
+     * @return false if not found
+     */
+    public synchronized boolean remove(T element) {
+        K key = keyOf(checkNotNull(element));
+        if (take(key, element) == null) return false;
+        retain(key);
+        changed();
+        return true;
+    }
+
+    /**
+     * Replaces the first candidate equal to oldElement in place by newElement, whose key may differ.
+     *
+     * @return false if oldElement not found
+     */
+    public synchronized boolean update(T oldElement, T newElement) {
+        K oldKey = keyOf(checkNotNull(oldElement));
+        // checked before the old one taken
+        K newKey = keyOf(checkNotNull(newElement));
+        Candidate<T> old = take(oldKey, oldElement);
+        if (old == null) return false;
+        List<Candidate<T>> list = candidates.computeIfAbsent(newKey, k -> new ArrayList<>(1));
+        // insert by sequence
+        int i = list.size();
+        while (i > 0 && list.get(i - 1).sequence > old.sequence) i--;
+        list.add(i, new Candidate<>(old.sequence, newElement));
+        if (!newKey.equals(oldKey)) retain(oldKey);
+        retain(newKey);
+        changed();
+        return true;
+    }
+
+    private K keyOf(T element) {
+        return checkNotNull(keyFunction.apply(element), "null key of element: %s", element);
+    }
+
+    // removes the candidate of the element from the key
+    private Candidate<T> take(K key, T element) {
+        List<Candidate<T>> list = candidates.get(key);
+        if (list == null) return null;
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i).element.equals(element)) {
+                Candidate<T> taken = list.remove(i);
+                if (list.isEmpty()) candidates.remove(key);
+                return taken;
+            }
+        }
+        return null;
+    }
+
+    // publishes the first/last candidate of the key
+    private void retain(K key) {
+        List<Candidate<T>> list = candidates.get(key);
+        if (list == null) {
+            retained.remove(key);
+        } else {
+            retained.put(key, manner == RETAIN_MANNER.RETAIN_LAST ?
+                    list.get(list.size() - 1).element :
+                    list.get(0).element);
+        }
+    }
+
+    private void changed() {
+        snapshot = null;
+        version++;
+    }
+
+    public T get(K key) {
+        return retained.get(key);
+    }
+
+    public boolean containsKey(K key) {
+        return retained.containsKey(key);
+    }
+
+    public int size() {
+        return retained.size();
+    }
+
+    /**
+     * @return number of deltas applied since built
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * An unmodifiable copy consistent over all keys, shared by readers until the next delta.
+     */
+    public Map<K, T> snapshot() {
+        Map<K, T> current = snapshot;
+        if (current != null) return current;
+        synchronized (this) {
+            if (snapshot == null) snapshot = Collections.unmodifiableMap(new HashMap<>(retained));
+            return snapshot;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return snapshot().toString();
+    }
+}
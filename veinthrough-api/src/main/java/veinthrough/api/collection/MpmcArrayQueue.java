@@ -0,0 +1,288 @@
+package veinthrough.api.collection;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+/**
+ * @author veinthrough
+ * <p>
+ * A first-in, first-out bounded blocking queue for multiple producers and multiple consumers, lock-free.
+ * The same circular array as {@link CircularArrayQueue}, with a sequence number per slot(Dmitry Vyukov's algorithm):
+ * <pre>
+ * 1. capacity: rounded up to a power of two, index = position & mask
+ * 2. sequence of slot i: initially i
+ *   (1) offer: sequence == tail时slot可写, CAS tail抢到slot, 写入element后sequence = tail + 1
+ *   (2) poll: sequence == head + 1时slot可读, CAS head抢到slot, 取出element后sequence = head + capacity
+ *   (3) sequence < position: full/empty, 不需要读取另一端的head/tail
+ * 3. 没有全局的lock, producers只竞争tail, consumers只竞争head, 两者用padding分开在不同的cache line
+ * 4. BlockingQueue: put()/take()/timed offer()/poll()在失败时idle: spin SPINS次, yield YIELDS次,
+ *   然后park(从1us加倍直到1ms), 没有signal, 所以被唤醒的延迟最多1ms, idle的次数是local变量, 没有allocation
+ * 5. size()/iterator(): weakly consistent
+ * 6. null elements not permitted
+ * </pre>
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class MpmcArrayQueue<E> extends MpmcHeadPad<E> implements BlockingQueue<E> {
+    // 4. spin -> yield -> park
+    private static final int SPINS = 100;
+    private static final int YIELDS = 10;
+    private static final long MIN_PARK_NANOS = MICROSECONDS.toNanos(1);
+    // park doubled 10 times, up to about 1ms
+    private static final int MAX_PARK_SHIFT = 10;
+
+    /**
+     * Constructs an empty queue, waiting by spin -> yield -> park.
+     *
+     * @param capacity the maximum capacity of the queue, rounded up to a power of two
+     */
+    public MpmcArrayQueue(int capacity) {
+        super(ceilingPowerOfTwo(capacity));
+    }
+
+    private static int ceilingPowerOfTwo(int capacity) {
+        checkArgument(capacity > 1 && capacity <= 1 << 30, "capacity must be in [2, 2^30].");
+        return 1 << (32 - Integer.numberOfLeadingZeros(capacity - 1));
+    }
+
+    public int capacity() {
+        return elements.length;
+    }
+
+    @Override
+    public boolean offer(E newElement) {
+        checkNotNull(newElement);
+        long position = tail;
+        int index;
+        while (true) {
+            index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (TAIL.compareAndSet(this, position, position + 1)) break;
+                position = tail;
+            } else if (difference < 0) {
+                // the slot has not been polled since the last round
+                return false;
+            } else {
+                // another producer got the slot
+                position = tail;
+            }
+        }
+        elements[index] = newElement;
+        // publish the element
+        sequences.lazySet(index, position + 1);
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long position = head;
+        int index;
+        while (true) {
+            index = (int) position & mask;
+            long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (HEAD.compareAndSet(this, position, position + 1)) break;
+                position = head;
+            } else if (difference < 0) {
+                // the slot has not been offered
+                return null;
+            } else {
+                // another consumer got the slot
+                position = head;
+            }
+        }
+        E r = (E) elements[index];
+        elements[index] = null;
+        // release the slot for the next round
+        sequences.lazySet(index, position + elements.length);
+        return r;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        while (true) {
+            long position = head;
+            int index = (int) position & mask;
+            if (sequences.get(index) != position + 1) return null;
+            E r = (E) elements[index];
+            // not polled meanwhile
+            if (r != null && head == position) return r;
+        }
+    }
+
+    @Override
+    public void put(E newElement) throws InterruptedException {
+        int idles = 0;
+        while (!offer(newElement)) idles = idle(idles);
+    }
+
+    @Override
+    public boolean offer(E newElement, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int idles = 0;
+        while (!offer(newElement)) {
+            if (System.nanoTime() - deadline >= 0) return false;
+            idles = idle(idles);
+        }
+        return true;
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        int idles = 0;
+        E r;
+        while ((r = poll()) == null) idles = idle(idles);
+        return r;
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int idles = 0;
+        E r;
+        while ((r = poll()) == null) {
+            if (System.nanoTime() - deadline >= 0) return null;
+            idles = idle(idles);
+        }
+        return r;
+    }
+
+    // 4. idles: times idled in this wait, returns it incremented(capped)
+    // no Thread.onSpinWait() as the build targets 8
+    private static int idle(int idles) throws InterruptedException {
+        // parkNanos() returns on interrupt, checked by the next idle()
+        if (Thread.interrupted()) throw new InterruptedException();
+        if (idles >= SPINS + YIELDS) {
+            LockSupport.parkNanos(MIN_PARK_NANOS << (idles - SPINS - YIELDS));
+        } else if (idles >= SPINS) {
+            Thread.yield();
+        }
+        return Math.min(idles + 1, SPINS + YIELDS + MAX_PARK_SHIFT);
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return elements.length - size();
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        checkArgument(c != this, "cannot drain to itself.");
+        int n = 0;
+        E e;
+        while (n < maxElements && (e = poll()) != null) {
+            c.add(e);
+            n++;
+        }
+        return n;
+    }
+
+    @Override
+    public int size() {
+        // head read before and after tail should be the same, otherwise retry
+        long after = head;
+        while (true) {
+            long before = after;
+            long t = tail;
+            after = head;
+            if (before == after) return (int) Math.max(0, Math.min(t - after, elements.length));
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // weakly consistent: a snapshot of the offered but not polled elements
+    @Override
+    @SuppressWarnings("unchecked")
+    public Iterator<E> iterator() {
+        long t = tail;
+        List<E> snapshot = new ArrayList<>();
+        for (long position = head; position < t; position++) {
+            int index = (int) position & mask;
+            Object e = elements[index];
+            if (e != null && sequences.get(index) == position + 1) snapshot.add((E) e);
+        }
+        return Collections.unmodifiableList(snapshot).iterator();
+    }
+}
+
+/*
+ * Field layout by class hierarchy, superclass fields are laid out first:
+ * padding -> slots/tail -> padding -> head -> padding
+ */
+@SuppressWarnings("unused")
+abstract class MpmcPad<E> extends AbstractQueue<E> {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16;
+}
+
+abstract class MpmcTailFields<E> extends MpmcPad<E> {
+    static final AtomicLongFieldUpdater<MpmcTailFields> TAIL =
+            AtomicLongFieldUpdater.newUpdater(MpmcTailFields.class, "tail");
+    final Object[] elements;
+    final AtomicLongArray sequences;
+    final int mask;
+    // competed by producers
+    volatile long tail;
+
+    MpmcTailFields(int capacity) {
+        elements = new Object[capacity];
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) sequences.lazySet(i, i);
+        mask = capacity - 1;
+    }
+}
+
+@SuppressWarnings("unused")
+abstract class MpmcTailPad<E> extends MpmcTailFields<E> {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16;
+
+    MpmcTailPad(int capacity) {
+        super(capacity);
+    }
+}
+
+abstract class MpmcHeadFields<E> extends MpmcTailPad<E> {
+    static final AtomicLongFieldUpdater<MpmcHeadFields> HEAD =
+            AtomicLongFieldUpdater.newUpdater(MpmcHeadFields.class, "head");
+    // competed by consumers
+    volatile long head;
+
+    MpmcHeadFields(int capacity) {
+        super(capacity);
+    }
+}
+
+@SuppressWarnings("unused")
+abstract class MpmcHeadPad<E> extends MpmcHeadFields<E> {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16;
+
+    MpmcHeadPad(int capacity) {
+        super(capacity);
+    }
+}
@@ -0,0 +1,298 @@
+package veinthrough.api.collection;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+import static com.google.common.base.Preconditions.checkState;
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * @author veinthrough
+ * <p>
+ * A first-in, first-out bounded buffer of fixed-size binary records, off-heap.
+ * The same circular array as {@link CircularArrayQueue}, but in a direct ByteBuffer or a MappedByteBuffer:
+ * <pre>
+ * 1. layout: header + capacity * recordSize
+ *   header: magic(int) | recordSize(int) | capacity(int) | reserved(int) | head(long) | tail(long)
+ *   head/tail: 单调递增的long sequence, slot = sequence % capacity, 保存在header中
+ * 2. allocate(): direct ByteBuffer, no GC pressure on the heap
+ * 3. map(): MappedByteBuffer over a file, head/tail/records survive restarts,
+ *   reopened with the same capacity/recordSize, force() to write to the storage device,
+ *   only an empty file is initialised, a non-empty file without the magic is rejected
+ * 4. flyweight {@link Record}: 读写record的fields不需要copy, 每个buffer只有2个Record对象(writer/reader)
+ *   (1) write: tryClaim() -> put fields -> publish()
+ *   (2) read: peek() -> get fields -> release()
+ *   (3) publish()/release() without an outstanding tryClaim()/peek() throw IllegalStateException,
+ *     the header in a mapped file is never moved past full/empty
+ *   (4) offer(ByteBuffer)/poll(ByteBuffer): copy a whole record by absolute get/put, no duplicate()
+ * 5. not thread-safe
+ * </pre>
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class OffHeapRingBuffer {
+    private static final int MAGIC = 0x52494E47;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int RECORD_SIZE_OFFSET = 4;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int HEAD_OFFSET = 16;
+    private static final int TAIL_OFFSET = 24;
+    public static final int HEADER_SIZE = 32;
+
+    private final ByteBuffer buffer;
+    private final int capacity;
+    private final int recordSize;
+    private final Record writer = new Record();
+    private final Record reader = new Record();
+    // outstanding tryClaim()/peek(), not persisted
+    private boolean claimed;
+    private boolean peeked;
+
+    private OffHeapRingBuffer(ByteBuffer buffer, int capacity, int recordSize, boolean fresh) {
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.recordSize = recordSize;
+        if (!fresh) {
+            // reopened
+            checkState(buffer.getInt(MAGIC_OFFSET) == MAGIC, "not a ring buffer: no magic in the header.");
+            checkArgument(buffer.getInt(RECORD_SIZE_OFFSET) == recordSize &&
+                            buffer.getInt(CAPACITY_OFFSET) == capacity,
+                    "capacity/recordSize differ from the existing buffer.");
+            long size = tail() - head();
+            checkState(head() >= 0 && size >= 0 && size <= capacity, "corrupted head/tail in the header.");
+        } else {
+            buffer.putInt(RECORD_SIZE_OFFSET, recordSize);
+            buffer.putInt(CAPACITY_OFFSET, capacity);
+            buffer.putLong(HEAD_OFFSET, 0);
+            buffer.putLong(TAIL_OFFSET, 0);
+            // written last, the header is valid
+            buffer.putInt(MAGIC_OFFSET, MAGIC);
+        }
+    }
+
+    private static long sizeOf(int capacity, int recordSize) {
+        checkArgument(capacity > 0 && recordSize > 0, "capacity/recordSize must be positive.");
+        long size = HEADER_SIZE + (long) capacity * recordSize;
+        checkArgument(size <= Integer.MAX_VALUE, "buffer must be smaller than 2GB.");
+        return size;
+    }
+
+    /**
+     * A ring buffer in a direct ByteBuffer.
+     */
+    public static OffHeapRingBuffer allocate(int capacity, int recordSize) {
+        return new OffHeapRingBuffer(
+                ByteBuffer.allocateDirect((int) sizeOf(capacity, recordSize)), capacity, recordSize, true);
+    }
+
+    /**
+     * A ring buffer mapped from file, created if not existing, otherwise reopened with its head/tail/records.
+     * Only an empty file is initialised, a non-empty file without the magic is rejected, never overwritten.
+     * The mapping stays valid after this method returns, until the buffer is garbage-collected.
+     *
+     * @throws IllegalStateException if a non-empty file has no magic or a corrupted head/tail
+     */
+    public static OffHeapRingBuffer map(Path file, int capacity, int recordSize) throws IOException {
+        long size = sizeOf(capacity, recordSize);
+        try (FileChannel channel = FileChannel.open(file, CREATE, READ, WRITE)) {
+            // size before map(), which extends the file
+            boolean fresh = channel.size() == 0;
+            checkArgument(fresh || channel.size() == size,
+                    "file size differs from capacity/recordSize.");
+            return new OffHeapRingBuffer(
+                    channel.map(FileChannel.MapMode.READ_WRITE, 0, size), capacity, recordSize, fresh);
+        }
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int recordSize() {
+        return recordSize;
+    }
+
+    public int size() {
+        return (int) (tail() - head());
+    }
+
+    public boolean isEmpty() {
+        return tail() == head();
+    }
+
+    /**
+     * @return the writer flyweight positioned at the tail slot, null if full; publish() to offer it
+     */
+    public Record tryClaim() {
+        long tail = tail();
+        if (tail - head() == capacity) return null;
+        claimed = true;
+        return writer.wrap(offsetOf(tail));
+    }
+
+    /**
+     * Offers the record claimed by tryClaim().
+     *
+     * @throws IllegalStateException if no record claimed since the last publish()
+     */
+    public void publish() {
+        checkState(claimed, "publish() without tryClaim().");
+        claimed = false;
+        buffer.putLong(TAIL_OFFSET, tail() + 1);
+    }
+
+    /**
+     * @return the reader flyweight positioned at the head slot, null if empty; release() to poll it
+     */
+    public Record peek() {
+        long head = head();
+        if (head == tail()) return null;
+        peeked = true;
+        return reader.wrap(offsetOf(head));
+    }
+
+    /**
+     * Polls the record got by peek().
+     *
+     * @throws IllegalStateException if no record peeked since the last release()
+     */
+    public void release() {
+        checkState(peeked, "release() without peek().");
+        peeked = false;
+        buffer.putLong(HEAD_OFFSET, head() + 1);
+    }
+
+    /**
+     * Copies recordSize bytes from src's position.
+     *
+     * @return false if full
+     */
+    public boolean offer(ByteBuffer src) {
+        checkArgument(src.remaining() >= recordSize, "src has less than recordSize bytes.");
+        Record record = tryClaim();
+        if (record == null) return false;
+        copy(src, src.position(), buffer, record.offset, recordSize);
+        src.position(src.position() + recordSize);
+        publish();
+        return true;
+    }
+
+    /**
+     * Copies recordSize bytes to dst's position.
+     *
+     * @return false if empty
+     */
+    public boolean poll(ByteBuffer dst) {
+        checkArgument(dst.remaining() >= recordSize, "dst has less than recordSize bytes.");
+        Record record = peek();
+        if (record == null) return false;
+        copy(buffer, record.offset, dst, dst.position(), recordSize);
+        dst.position(dst.position() + recordSize);
+        release();
+        return true;
+    }
+
+    public void clear() {
+        peeked = false;
+        buffer.putLong(HEAD_OFFSET, tail());
+    }
+
+    /**
+     * Writes changes to the storage device if mapped from file.
+     */
+    public void force() {
+        if (buffer instanceof MappedByteBuffer) ((MappedByteBuffer) buffer).force();
+    }
+
+    private long head() {
+        return buffer.getLong(HEAD_OFFSET);
+    }
+
+    private long tail() {
+        return buffer.getLong(TAIL_OFFSET);
+    }
+
+    private int offsetOf(long sequence) {
+        return HEADER_SIZE + (int) (sequence % capacity) * recordSize;
+    }
+
+    // absolute get/put, 8 bytes at a time when the byte orders are the same
+    private static void copy(ByteBuffer from, int fromIndex, ByteBuffer to, int toIndex, int n) {
+        int i = 0;
+        if (from.order() == to.order())
+            for (; i + Long.BYTES <= n; i += Long.BYTES) to.putLong(toIndex + i, from.getLong(fromIndex + i));
+        for (; i < n; i++) to.put(toIndex + i, from.get(fromIndex + i));
+    }
+
+    /**
+     * Flyweight accessor of a record slot, fields are read/written in place by offset in the record.
+     * Only valid until publish()/release().
+     */
+    public final class Record {
+        private int offset;
+
+        private Record() {
+        }
+
+        private Record wrap(int offset) {
+            this.offset = offset;
+            return this;
+        }
+
+        private int at(int index, int size) {
+            checkPositionIndexes(index, index + size, recordSize);
+            return offset + index;
+        }
+
+        public int getInt(int index) {
+            return buffer.getInt(at(index, Integer.BYTES));
+        }
+
+        public Record putInt(int index, int value) {
+            buffer.putInt(at(index, Integer.BYTES), value);
+            return this;
+        }
+
+        public long getLong(int index) {
+            return buffer.getLong(at(index, Long.BYTES));
+        }
+
+        public Record putLong(int index, long value) {
+            buffer.putLong(at(index, Long.BYTES), value);
+            return this;
+        }
+
+        public double getDouble(int index) {
+            return buffer.getDouble(at(index, Double.BYTES));
+        }
+
+        public Record putDouble(int index, double value) {
+            buffer.putDouble(at(index, Double.BYTES), value);
+            return this;
+        }
+
+        public byte getByte(int index) {
+            return buffer.get(at(index, Byte.BYTES));
+        }
+
+        public Record putByte(int index, byte value) {
+            buffer.put(at(index, Byte.BYTES), value);
+            return this;
+        }
+
+        public void getBytes(int index, byte[] dst) {
+            int from = at(index, dst.length);
+            for (int i = 0; i < dst.length; i++) dst[i] = buffer.get(from + i);
+        }
+
+        public Record putBytes(int index, byte[] src) {
+            int to = at(index, src.length);
+            for (int i = 0; i < src.length; i++) buffer.put(to + i, src[i]);
+            return this;
+        }
+    }
+}
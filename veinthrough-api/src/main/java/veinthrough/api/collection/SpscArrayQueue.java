@@ -0,0 +1,196 @@
+package veinthrough.api.collection;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * @author veinthrough
+ * <p>
+ * A first-in, first-out bounded queue for one producer thread and one consumer thread, lock-free.
+ * The same circular array as {@link CircularArrayQueue}, but safe to hand off elements between 2 threads:
+ * <pre>
+ * 1. capacity: rounded up to a power of two, index = sequence & mask, 代替%
+ * 2. head/tail: 单调递增的long sequence, 没有共享的count
+ *   (1) tail: only written by the producer
+ *   (2) head: only written by the consumer
+ *   (3) lazySet(ordered store): 写入element之后再发布tail/head, 不需要full fence
+ * 3. cached head/tail: producer缓存head, 只有在看起来满的时候才读取consumer的head; consumer同理缓存tail
+ * 4. false sharing: producer和consumer的fields用padding分开在不同的cache line
+ * 5. Queue API:
+ *   (1) offer()/add(): only called by the producer
+ *   (2) poll()/peek()/remove(): only called by the consumer
+ *   (3) size()/isEmpty(): called by any thread, approximate
+ *   (4) iterator(): weakly consistent, called by the consumer, remove() not supported
+ *   (5) null elements not permitted
+ * </pre>
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class SpscArrayQueue<E> extends SpscConsumerPad<E> {
+    /**
+     * Constructs an empty queue.
+     *
+     * @param capacity the maximum capacity of the queue, rounded up to a power of two
+     */
+    public SpscArrayQueue(int capacity) {
+        super(ceilingPowerOfTwo(capacity));
+    }
+
+    private static int ceilingPowerOfTwo(int capacity) {
+        checkArgument(capacity > 0 && capacity <= 1 << 30, "capacity must be in [1, 2^30].");
+        return 1 << (32 - Integer.numberOfLeadingZeros(capacity - 1));
+    }
+
+    public int capacity() {
+        return elements.length;
+    }
+
+    @Override
+    public boolean offer(E newElement) {
+        checkNotNull(newElement);
+        long t = tail;
+        if (t - headCache >= elements.length) {
+            // looks full, refresh the cached head
+            headCache = head;
+            if (t - headCache >= elements.length) return false;
+        }
+        elements[(int) t & mask] = newElement;
+        // publish the element
+        TAIL.lazySet(this, t + 1);
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long h = head;
+        if (h >= tailCache) {
+            // looks empty, refresh the cached tail
+            tailCache = tail;
+            if (h >= tailCache) return null;
+        }
+        int index = (int) h & mask;
+        E r = (E) elements[index];
+        elements[index] = null;
+        // release the slot
+        HEAD.lazySet(this, h + 1);
+        return r;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        long h = head;
+        if (h >= tailCache) {
+            tailCache = tail;
+            if (h >= tailCache) return null;
+        }
+        return (E) elements[(int) h & mask];
+    }
+
+    @Override
+    public int size() {
+        // head read before and after tail should be the same, otherwise retry
+        long after = head;
+        while (true) {
+            long before = after;
+            long t = tail;
+            after = head;
+            if (before == after) return (int) Math.min(t - after, elements.length);
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return head >= tail;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new QueueIterator();
+    }
+
+    // weakly consistent: elements from head to the tail at construction
+    private class QueueIterator implements Iterator<E> {
+        private long cursor = head;
+        private final long end = tail;
+
+        @Override
+        public boolean hasNext() {
+            return cursor < end && cursor >= head;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            E r = (E) elements[(int) cursor++ & mask];
+            // polled by the consumer meanwhile
+            if (r == null) throw new NoSuchElementException();
+            return r;
+        }
+    }
+}
+
+/*
+ * Field layout by class hierarchy, superclass fields are laid out first:
+ * padding -> producer fields -> padding -> consumer fields -> padding
+ */
+@SuppressWarnings("unused")
+abstract class SpscPad<E> extends AbstractQueue<E> {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16;
+}
+
+abstract class SpscProducerFields<E> extends SpscPad<E> {
+    static final AtomicLongFieldUpdater<SpscProducerFields> TAIL =
+            AtomicLongFieldUpdater.newUpdater(SpscProducerFields.class, "tail");
+    final Object[] elements;
+    final int mask;
+    // written by the producer
+    volatile long tail;
+    // only accessed by the producer
+    long headCache;
+
+    SpscProducerFields(int capacity) {
+        elements = new Object[capacity];
+        mask = capacity - 1;
+    }
+}
+
+@SuppressWarnings("unused")
+abstract class SpscProducerPad<E> extends SpscProducerFields<E> {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16;
+
+    SpscProducerPad(int capacity) {
+        super(capacity);
+    }
+}
+
+abstract class SpscConsumerFields<E> extends SpscProducerPad<E> {
+    static final AtomicLongFieldUpdater<SpscConsumerFields> HEAD =
+            AtomicLongFieldUpdater.newUpdater(SpscConsumerFields.class, "head");
+    // written by the consumer
+    volatile long head;
+    // only accessed by the consumer
+    long tailCache;
+
+    SpscConsumerFields(int capacity) {
+        super(capacity);
+    }
+}
+
+@SuppressWarnings("unused")
+abstract class SpscConsumerPad<E> extends SpscConsumerFields<E> {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16;
+
+    SpscConsumerPad(int capacity) {
+        super(capacity);
+    }
+}
@@ -7,7 +7,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import static veinthrough.api.util.MethodLog.methodLog;
+import static veinthrough.api.util.MethodLog.debug;
 
 /**
  * @author veinthrough
@@ -192,13 +192,11 @@ public class GetOpt {
         options = new GetOptDesc[n];
         for (int i = 0, ix = 0; i < opt.length(); i++) {
             final char c = opt.charAt(i);
-            boolean argTakesValue = false;
-            if (i < opt.length() - 1 && opt.charAt(i + 1) == ':') {
-                argTakesValue = true;
-                ++i;
-            }
-            log.debug(methodLog("CONSTR: options[" + ix + "] = " + c + ", " + argTakesValue));
-            options[ix++] = new GetOptDesc(c, null, argTakesValue);
+            final boolean argTakesValue = i < opt.length() - 1 && opt.charAt(i + 1) == ':';
+            if (argTakesValue) ++i;
+            final int index = ix++;
+            debug(log, () -> "CONSTR: options[" + index + "] = " + c + ", " + argTakesValue);
+            options[index] = new GetOptDesc(c, null, argTakesValue);
         }
     }
 
@@ -228,7 +226,8 @@ public class GetOpt {
         Map<String, String> optionsValueMap = new HashMap<>();
         fileNameArguments = new ArrayList<>();
         for (int i = 0; i < argv.length; i++) { // Cannot use foreach, need i
-            log.debug(methodLog("parseArg: i=" + i + ": arg " + argv[i]));
+            final int index = i;
+            debug(log, () -> "parseArg: i=" + index + ": arg " + argv[index]);
             char c = getopt(argv);  // sets global "optarg"
             if (c == DONE) {
                 fileNameArguments.add(argv[i]);
@@ -272,8 +271,7 @@ public class GetOpt {
      * @return One option character each time called, or DONE after last.
      */
     private char getopt(String[] argv) {
-        log.debug(methodLog(
-                "optind=" + optind + ", argv.length=" + argv.length));
+        debug(log, () -> "optind=" + optind + ", argv.length=" + argv.length);
 
         // (1) Index >= argv.length
         if (optind >= (argv.length)) {
@@ -9,7 +9,7 @@ import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.List;
 
-import static veinthrough.api.util.MethodLog.exceptionLog;
+import static veinthrough.api.util.MethodLog.error;
 
 /**
  * This class give a implementation of printing all fields and coordinated values of a object
@@ -83,7 +83,7 @@ public class ObjectAnalyzer{
                         // recursion of the value
                         else result.append(analyze(value));
                     } catch(Exception e) {
-                        log.error(exceptionLog(e));
+                        error(log, e);
                     }
                 }
             }
@@ -0,0 +1,133 @@
+package veinthrough.api.util;
+
+import java.lang.reflect.Method;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * @author veinthrough
+ * <p>
+ * Resolves the "[IN]method()" prefix of a caller for {@link MethodLog},
+ * capturing only the needed frame instead of Thread.getStackTrace():
+ * <pre>
+ * 1. engines, the first available at class loading:
+ *   (1) 9+: StackWalker, lazy frames, no Throwable, found by reflection as the build targets 8
+ *   (2) 8: JavaLangAccess.getStackTraceElement(Throwable, index), one StackTraceElement instead of all
+ *   (3) Thread.getStackTrace()
+ * 2. prefix cached per method name, no String.format() after the first call
+ * </pre>
+ */
+final class CallerResolver {
+    private static final Engine ENGINE = engine();
+    private static final ConcurrentHashMap<String, String> PREFIXES = new ConcurrentHashMap<>();
+
+    private CallerResolver() {
+    }
+
+    /**
+     * Frame index: 0 is Engine.methodName(), 1 is methodPrefix()/methodName(), 2 is their caller.
+     */
+    private interface Engine {
+        String methodName(int index);
+    }
+
+    /**
+     * @param skip 0 for the caller of methodPrefix(), 1 for its caller, and so on
+     */
+    static String methodPrefix(int skip) {
+        String name = ENGINE.methodName(skip + 2);
+        String prefix = PREFIXES.get(name);
+        return prefix != null ? prefix : PREFIXES.computeIfAbsent(name, n -> "[IN]" + n + "()");
+    }
+
+    /**
+     * @param skip 0 for the caller of methodName(), 1 for its caller, and so on
+     */
+    static String methodName(int skip) {
+        return ENGINE.methodName(skip + 2);
+    }
+
+    static String engineName() {
+        return ENGINE.getClass().getSimpleName();
+    }
+
+    private static Engine engine() {
+        try {
+            return new StackWalkerEngine();
+        } catch (ReflectiveOperationException | RuntimeException ignored) {
+        }
+        try {
+            return new JavaLangAccessEngine();
+        } catch (ReflectiveOperationException | RuntimeException ignored) {
+        }
+        return new StackTraceEngine();
+    }
+
+    // frame 0 is Engine.methodName(), frame 1 is verify()
+    private static void verify(Engine engine) throws ReflectiveOperationException {
+        if (!"methodName".equals(engine.methodName(0)) || !"verify".equals(engine.methodName(1)))
+            throw new NoSuchMethodException(engine.getClass().getSimpleName() + " resolves wrong frames");
+    }
+
+    // 1.(1)
+    private static class StackWalkerEngine implements Engine {
+        private final Object walker;
+        private final Method walk;
+        private final Method getMethodName;
+
+        StackWalkerEngine() throws ReflectiveOperationException {
+            Class<?> walkerClass = Class.forName("java.lang.StackWalker");
+            walker = walkerClass.getMethod("getInstance").invoke(null);
+            walk = walkerClass.getMethod("walk", Function.class);
+            getMethodName = Class.forName("java.lang.StackWalker$StackFrame").getMethod("getMethodName");
+            // reflection frames of walk.invoke() must be hidden by StackWalker
+            verify(this);
+        }
+
+        @Override
+        public String methodName(int index) {
+            Function<Stream<?>, Optional<?>> frame = frames -> frames.skip(index).findFirst();
+            try {
+                Optional<?> found = (Optional<?>) walk.invoke(walker, frame);
+                return (String) getMethodName.invoke(found.orElseThrow(IllegalArgumentException::new));
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    // 1.(2)
+    private static class JavaLangAccessEngine implements Engine {
+        private final Object access;
+        private final Method getStackTraceElement;
+
+        JavaLangAccessEngine() throws ReflectiveOperationException {
+            access = Class.forName("sun.misc.SharedSecrets").getMethod("getJavaLangAccess").invoke(null);
+            getStackTraceElement = Class.forName("sun.misc.JavaLangAccess")
+                    .getMethod("getStackTraceElement", Throwable.class, int.class);
+            verify(this);
+        }
+
+        @Override
+        public String methodName(int index) {
+            try {
+                // element 0 is this method, where the Throwable is filled in
+                return ((StackTraceElement) getStackTraceElement.invoke(access, new Throwable(), index))
+                        .getMethodName();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    // 1.(3)
+    private static class StackTraceEngine implements Engine {
+        @Override
+        public String methodName(int index) {
+            // [0] is Thread.getStackTrace()
+            return Thread.currentThread().getStackTrace()[index + 1].getMethodName();
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package veinthrough.api.util;
+
+import org.slf4j.Logger;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static veinthrough.api.util.MethodLog.DELIM_MESSAGE;
+import static veinthrough.api.util.MethodLog.DELIM_NEXT_LINE;
+import static veinthrough.api.util.MethodLog.DELIM_NEXT_VARIABLE;
+import static veinthrough.api.util.MethodLog.END;
+import static veinthrough.api.util.MethodLog.VARIABLES_PRE;
+
+/**
+ * @author veinthrough
+ * <p>
+ * A structured log event made by {@link MethodLog#event(String)},
+ * e.g. event("transfer").step(1).kv("from", from).kv("amount", amount).debug(log):
+ * <pre>
+ * 1. kv(): primitive overloads, values appended as they come instead of pre-stringified,
+ *   no varargs array, no boxing, no String per value
+ * 2. formats:
+ *   (1) HUMAN: the same as methodLog(step, name, key, value, ...)
+ *   (2) KEY_VALUE: event=transfer method=transfer step=1 from=3 amount=2.5, strings quoted if needed
+ *   (3) JSON: {"event":"transfer","method":"transfer","step":1,"from":3,"amount":2.5}
+ * 3. ended by trace()/debug()/info()/warn()/error(log) or build():
+ *   (1) caller method resolved and the line formatted only if the level is enabled
+ *   (2) the event and its StringBuilders are reused by the next event() of the thread,
+ *     an event made while another is not ended(e.g. in a kv() argument) is a new one,
+ *     kept by the thread instead, so an event never ended(e.g. a kv() argument threw) costs one allocation
+ * 4. not thread-safe, an event is used by the thread making it
+ * </pre>
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class LogEvent {
+    public enum Format {
+        HUMAN, KEY_VALUE, JSON
+    }
+
+    // StringBuilders larger than this are not kept by the thread
+    private static final int MAX_RETAINED = 16 * 1024;
+    private static final int INITIAL_CAPACITY = 256;
+    private static final ThreadLocal<LogEvent> EVENTS = ThreadLocal.withInitial(LogEvent::new);
+    private static volatile Format defaultFormat = Format.HUMAN;
+
+    private StringBuilder vars = new StringBuilder(INITIAL_CAPACITY);
+    private StringBuilder line = new StringBuilder(INITIAL_CAPACITY);
+    private boolean inUse;
+    private Format format;
+    private String name;
+    private int step;
+    private boolean hasStep;
+    private int count;
+
+    private LogEvent() {
+    }
+
+    /**
+     * Format of event(name), HUMAN by default.
+     */
+    public static void setDefaultFormat(Format format) {
+        defaultFormat = checkNotNull(format);
+    }
+
+    public static Format getDefaultFormat() {
+        return defaultFormat;
+    }
+
+    // 3.(2)
+    static LogEvent start(Format format, String name) {
+        LogEvent event = EVENTS.get();
+        if (event.inUse) {
+            // nested, or the last one never ended
+            event = new LogEvent();
+            EVENTS.set(event);
+        }
+        event.inUse = true;
+        event.format = checkNotNull(format);
+        event.name = checkNotNull(name);
+        event.hasStep = false;
+        event.count = 0;
+        event.vars.setLength(0);
+        return event;
+    }
+
+    public LogEvent step(int step) {
+        this.step = step;
+        hasStep = true;
+        return this;
+    }
+
+    public LogEvent kv(String key, int value) {
+        key(key).append(value);
+        return this;
+    }
+
+    public LogEvent kv(String key, long value) {
+        key(key).append(value);
+        return this;
+    }
+
+    public LogEvent kv(String key, float value) {
+        if (format == Format.JSON && (Float.isNaN(value) || Float.isInfinite(value))) {
+            key(key).append('"').append(value).append('"');
+        } else {
+            key(key).append(value);
+        }
+        return this;
+    }
+
+    public LogEvent kv(String key, double value) {
+        if (format == Format.JSON && (Double.isNaN(value) || Double.isInfinite(value))) {
+            key(key).append('"').append(value).append('"');
+        } else {
+            key(key).append(value);
+        }
+        return this;
+    }
+
+    public LogEvent kv(String key, boolean value) {
+        key(key).append(value);
+        return this;
+    }
+
+    public LogEvent kv(String key, char value) {
+        StringBuilder sb = key(key);
+        if (format == Format.HUMAN) {
+            sb.append(value);
+        } else {
+            sb.append('"');
+            escape(sb, value);
+            sb.append('"');
+        }
+        return this;
+    }
+
+    /**
+     * value: String.valueOf(value), quoted and escaped in KEY_VALUE/JSON if needed, null in JSON is null
+     */
+    public LogEvent kv(String key, Object value) {
+        StringBuilder sb = key(key);
+        if (format == Format.JSON && value == null) {
+            sb.append("null");
+        } else {
+            value(sb, String.valueOf(value));
+        }
+        return this;
+    }
+
+    // appends the delimiter and the key, returns vars to append the value
+    private StringBuilder key(String key) {
+        checkNotNull(key);
+        switch (format) {
+            case HUMAN:
+                vars.append(count == 0 ? VARIABLES_PRE : DELIM_NEXT_VARIABLE).append(key).append(": ");
+                break;
+            case KEY_VALUE:
+                vars.append(' ').append(key).append('=');
+                break;
+            case JSON:
+                vars.append(',');
+                quoted(vars, key);
+                vars.append(':');
+                break;
+        }
+        count++;
+        return vars;
+    }
+
+    private void value(StringBuilder sb, String value) {
+        switch (format) {
+            case HUMAN:
+                sb.append(value);
+                break;
+            case KEY_VALUE:
+                if (needsQuotes(value)) {
+                    quoted(sb, value);
+                } else {
+                    sb.append(value);
+                }
+                break;
+            case JSON:
+                quoted(sb, value);
+                break;
+        }
+    }
+
+    private static boolean needsQuotes(String value) {
+        if (value.isEmpty()) return true;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c <= ' ' || c == '=' || c == '"' || c == '\\') return true;
+        }
+        return false;
+    }
+
+    private static void quoted(StringBuilder sb, String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) escape(sb, value.charAt(i));
+        sb.append('"');
+    }
+
+    // JSON string escaping, also used by KEY_VALUE
+    private static void escape(StringBuilder sb, char c) {
+        switch (c) {
+            case '"':
+                sb.append("\\\"");
+                break;
+            case '\\':
+                sb.append("\\\\");
+                break;
+            case '\n':
+                sb.append("\\n");
+                break;
+            case '\r':
+                sb.append("\\r");
+                break;
+            case '\t':
+                sb.append("\\t");
+                break;
+            default:
+                if (c < ' ') {
+                    sb.append("\\u00").append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xf, 16));
+                } else {
+                    sb.append(c);
+                }
+        }
+    }
+
+    // 3.(1)
+    public void trace(Logger log) {
+        try {
+            if (log.isTraceEnabled()) log.trace(format());
+        } finally {
+            end();
+        }
+    }
+
+    public void debug(Logger log) {
+        try {
+            if (log.isDebugEnabled()) log.debug(format());
+        } finally {
+            end();
+        }
+    }
+
+    public void info(Logger log) {
+        try {
+            if (log.isInfoEnabled()) log.info(format());
+        } finally {
+            end();
+        }
+    }
+
+    public void warn(Logger log) {
+        try {
+            if (log.isWarnEnabled()) log.warn(format());
+        } finally {
+            end();
+        }
+    }
+
+    public void error(Logger log) {
+        try {
+            if (log.isErrorEnabled()) log.error(format());
+        } finally {
+            end();
+        }
+    }
+
+    /**
+     * @return the log string, the event is ended
+     */
+    public String build() {
+        try {
+            return format();
+        } finally {
+            end();
+        }
+    }
+
+    // called by the terminal methods directly, [2] is their caller
+    private String format() {
+        StringBuilder sb = line;
+        sb.setLength(0);
+        switch (format) {
+            case HUMAN:
+                sb.append(CallerResolver.methodPrefix(2));
+                if (hasStep) appendStep(sb);
+                sb.append(DELIM_MESSAGE).append(name);
+                if (count > 0) sb.append(DELIM_NEXT_LINE).append(vars).append('}');
+                sb.append(END);
+                break;
+            case KEY_VALUE:
+                sb.append("event=");
+                value(sb, name);
+                sb.append(" method=").append(CallerResolver.methodName(2));
+                if (hasStep) sb.append(" step=").append(step);
+                sb.append(vars);
+                break;
+            case JSON:
+                sb.append("{\"event\":");
+                quoted(sb, name);
+                sb.append(",\"method\":");
+                quoted(sb, CallerResolver.methodName(2));
+                if (hasStep) sb.append(",\"step\":").append(step);
+                sb.append(vars).append('}');
+                break;
+        }
+        return sb.toString();
+    }
+
+    // "[STEP %03d]" without String.format()
+    private void appendStep(StringBuilder sb) {
+        if (step < 0) {
+            sb.append(String.format("[STEP %03d]", step));
+        } else {
+            sb.append("[STEP ");
+            if (step < 100) sb.append(step < 10 ? "00" : "0");
+            sb.append(step).append(']');
+        }
+    }
+
+    private void end() {
+        if (vars.capacity() > MAX_RETAINED) vars = new StringBuilder(INITIAL_CAPACITY);
+        if (line.capacity() > MAX_RETAINED) line = new StringBuilder(INITIAL_CAPACITY);
+        name = null;
+        inUse = false;
+    }
+}
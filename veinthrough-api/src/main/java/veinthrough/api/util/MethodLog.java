@@ -3,25 +3,40 @@ package veinthrough.api.util;
 import com.google.common.collect.ImmutableList;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
+import org.slf4j.Logger;
 
 import java.util.Arrays;
+import java.util.function.Supplier;
 
 /**
  * @author veinthrough
  * <p>
  * Make log string for method.
+ * <pre>
+ * 1. methodLog()/exceptionLog(): the log string, made before the logger checks the level,
+ *   e.g. log.debug(methodLog(...)) walks the stack and formats even if debug is disabled
+ * 2. trace()/debug()/info()/warn()/error(log, ...): logger-aware, the same log string as 1.,
+ *   nothing walked or formatted unless the level is enabled
+ *   (1) (log, vars): methodLog(vars)
+ *   (2) (log, step, vars): methodLog(step, vars)
+ *   (3) (log, e, vars): exceptionLog(e, vars), warn()/error() only
+ *   (4) (log, message supplier): methodLog(message.get()), for messages costly to make
+ * 3. getMethodString(): only the caller's frame captured and "[IN]method()" cached, by {@link CallerResolver}
+ * 4. event(): a structured {@link LogEvent} of primitive key/values, no pre-stringified vars,
+ *   in the format of 1. or KEY_VALUE/JSON for log shippers
+ * </pre>
  */
 @SuppressWarnings("SameParameterValue")
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class MethodLog {
-    private static final String VARIABLES_PRE = "Variables: {";
+    static final String VARIABLES_PRE = "Variables: {";
     private static final String SPACE_PRE = "    ";
-    private static final String DELIM_MESSAGE = ", ";
-    private static final String DELIM_NEXT_LINE = ",\n" + SPACE_PRE;
-    private static final String DELIM_NEXT_VARIABLE = DELIM_NEXT_LINE +
+    static final String DELIM_MESSAGE = ", ";
+    static final String DELIM_NEXT_LINE = ",\n" + SPACE_PRE;
+    static final String DELIM_NEXT_VARIABLE = DELIM_NEXT_LINE +
             String.format("%-" + VARIABLES_PRE.length() + "s", " ");
     //    private static final String DELIM_END_LINE = ".";
-    private static final String END = "\n";
+    static final String END = "\n";
     private static final int STACK_DEPTH_CALLER = 1;
     // getMethodString:[3] -> private _methodLog:[2] -> caller:[1]
     // getMethodString:[4] -> private _methodLog:[3] -> public exceptionLog/methodLog:[2] -> caller:[1]
@@ -74,13 +89,92 @@ public class MethodLog {
         return _methodLog(1, step, vars);
     }
 
+    // 2.(1)
+    public static void trace(Logger log, String... vars) {
+        if (log.isTraceEnabled()) log.trace(_methodLog(1, vars));
+    }
+
+    // 2.(2)
+    public static void trace(Logger log, int step, String... vars) {
+        if (log.isTraceEnabled()) log.trace(_methodLog(1, step, vars));
+    }
+
+    // 2.(4)
+    public static void trace(Logger log, Supplier<String> message) {
+        if (log.isTraceEnabled()) log.trace(_methodLog(1, message.get()));
+    }
+
+    // 2.(1)
+    public static void debug(Logger log, String... vars) {
+        if (log.isDebugEnabled()) log.debug(_methodLog(1, vars));
+    }
+
+    // 2.(2)
+    public static void debug(Logger log, int step, String... vars) {
+        if (log.isDebugEnabled()) log.debug(_methodLog(1, step, vars));
+    }
+
+    // 2.(4)
+    public static void debug(Logger log, Supplier<String> message) {
+        if (log.isDebugEnabled()) log.debug(_methodLog(1, message.get()));
+    }
+
+    // 2.(1)
+    public static void info(Logger log, String... vars) {
+        if (log.isInfoEnabled()) log.info(_methodLog(1, vars));
+    }
+
+    // 2.(2)
+    public static void info(Logger log, int step, String... vars) {
+        if (log.isInfoEnabled()) log.info(_methodLog(1, step, vars));
+    }
+
+    // 2.(4)
+    public static void info(Logger log, Supplier<String> message) {
+        if (log.isInfoEnabled()) log.info(_methodLog(1, message.get()));
+    }
+
+    // 2.(1)
+    public static void warn(Logger log, String... vars) {
+        if (log.isWarnEnabled()) log.warn(_methodLog(1, vars));
+    }
+
+    // 2.(3)
+    public static void warn(Logger log, Throwable e, String... vars) {
+        if (log.isWarnEnabled()) log.warn(_exceptionLog(1, e, vars));
+    }
+
+    // 2.(1)
+    public static void error(Logger log, String... vars) {
+        if (log.isErrorEnabled()) log.error(_methodLog(1, vars));
+    }
+
+    // 2.(3)
+    public static void error(Logger log, Throwable e, String... vars) {
+        if (log.isErrorEnabled()) log.error(_exceptionLog(1, e, vars));
+    }
+
+    // 4.
+    public static LogEvent event(String name) {
+        return LogEvent.start(LogEvent.getDefaultFormat(), name);
+    }
+
+    // 4.
+    public static LogEvent event(LogEvent.Format format, String name) {
+        return LogEvent.start(format, name);
+    }
+
     public static String exceptionLog(Throwable e, String... vars) {
+        return _exceptionLog(1, e, vars);
+    }
+
+    private static String _exceptionLog(int depthAugment, Throwable e, String... vars) {
         if (vars.length == 0) {
-            return _methodLog(1, exceptionString(e));
+            return _methodLog(depthAugment + 1, exceptionString(e));
         } else if (vars.length == 1) {
-            return _methodLog(1, exceptionString(e, vars[0]));
+            return _methodLog(depthAugment + 1, exceptionString(e, vars[0]));
         } else {
-            return _methodLog(1,
+            return _methodLog(depthAugment + 1,
                     ImmutableList.<String>builder()
                             .add(exceptionString(e, vars[0]))
                             .add(Arrays.copyOfRange(vars, 1, vars.length))
@@ -113,9 +207,9 @@ public class MethodLog {
     }
 
     // public for comment-reference
+    // depth: the index of Thread.currentThread().getStackTrace(), [1] is getMethodString
     public static String getMethodString(int depth) {
-        return String.format("[IN]%s()",
-                Thread.currentThread().getStackTrace()[depth].getMethodName());
+        return CallerResolver.methodPrefix(depth - 1);
     }
 
     private static String getStepString(int step) {
@@ -11,7 +11,7 @@ import lombok.Getter;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
-import veinthrough.api._interface.Identifiable;
+import veinthrough.api._interface.LongIdentifiable;
 
 /**
  * @author veinthrough
@@ -23,7 +23,7 @@ import veinthrough.api._interface.Identifiable;
  */
 @RequiredArgsConstructor
 @AllArgsConstructor()
-public class Employee implements Comparable<Employee>, Cloneable, Identifiable<Long> {
+public class Employee implements Comparable<Employee>, Cloneable, LongIdentifiable {
     @Getter
     private static final AtomicLong NEXT_ID;
 
@@ -162,7 +162,7 @@ public class Employee implements Comparable<Employee>, Cloneable, Identifiable<L
     }
 
     @Override
-    public Long getIdentifier() {
+    public long getLongIdentifier() {
         return this.getId();
     }
 }
@@ -0,0 +1,109 @@
+package veinthrough.test.async;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import veinthrough.api.async.LoopCallable;
+import veinthrough.test.AbstractUnitTester;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static veinthrough.api.util.MethodLog.methodLog;
+
+/**
+ * @author veinthrough
+ * <p>
+ * LoopCallable.batched(): result放入buffer, 按maxBatch/maxLatency/termination flush到sink.
+ * <p>---------------------------------------------------------
+ * <pre>
+ * Tests:
+ * 1. maxBatch: ITERATIONS个result被flush为ITERATIONS/MAX_BATCH个batch
+ * 2. maxLatency: 每次sleep INTERVAL, 在MAX_LATENCY后flush
+ * 3. termination: 剩余不满maxBatch的result在loop终止时flush
+ * 4. sink exception: loop终止并由run()抛出, 失败的batch没有被清空, 之后不再flush
+ * </pre>
+ */
+@Slf4j
+public class BatchedLoopTest extends AbstractUnitTester {
+    private static final int ITERATIONS = 10000;
+    private static final int MAX_BATCH = 1000;
+    private static final int INTERVAL = 10;
+    private static final int MAX_LATENCY = 50;
+    private static final int TIME = 500;
+
+    @Override
+    public void test() {
+    }
+
+    // 1. maxBatch
+    @Test
+    public void maxBatchTest() {
+        int[] counter = {0};
+        List<Integer> sizes = new ArrayList<>();
+        List<Integer> results = new ArrayList<>();
+        LoopCallable.batched(
+                () -> ++counter[0],
+                () -> counter[0] >= ITERATIONS,
+                0, MAX_BATCH, TIME,
+                batch -> {
+                    sizes.add(batch.size());
+                    results.addAll(batch);
+                }).run();
+        assertEquals(ITERATIONS / MAX_BATCH, sizes.size());
+        sizes.forEach(size -> assertEquals(MAX_BATCH, (int) size));
+        assertEquals(ITERATIONS, results.size());
+        assertEquals(ITERATIONS, (int) results.get(ITERATIONS - 1));
+    }
+
+    // 2. maxLatency
+    // batches: 10, sizes: [5, 5, 5, 5, 5, 5, 5, 5, 5, 4]
+    @Test
+    public void maxLatencyTest() {
+        List<Integer> sizes = new ArrayList<>();
+        LoopCallable.batched(System::nanoTime, TIME, INTERVAL, MAX_BATCH, MAX_LATENCY,
+                batch -> sizes.add(batch.size())).run();
+        log.info(methodLog("Batches", "" + sizes.size(), "Sizes", sizes.toString()));
+        assertTrue(sizes.size() > 1);
+        // the oldest result waits at most maxLatency + interval
+        sizes.forEach(size -> assertTrue(size <= (MAX_LATENCY + INTERVAL) / INTERVAL));
+    }
+
+    // 3. termination
+    @Test
+    public void terminationTest() {
+        int[] counter = {0};
+        List<Integer> sizes = new ArrayList<>();
+        LoopCallable.batched(
+                () -> ++counter[0],
+                () -> counter[0] >= MAX_BATCH + MAX_BATCH / 2,
+                0, MAX_BATCH, TIME,
+                batch -> sizes.add(batch.size())).run();
+        assertEquals(2, sizes.size());
+        assertEquals(MAX_BATCH / 2, (int) sizes.get(1));
+    }
+
+    // 4. sink exception
+    @Test
+    public void sinkFailureTest() {
+        int[] counter = {0};
+        List<List<Integer>> batches = new ArrayList<>();
+        try {
+            LoopCallable.batched(
+                    () -> ++counter[0],
+                    () -> counter[0] >= ITERATIONS,
+                    0, MAX_BATCH, TIME,
+                    batch -> {
+                        batches.add(batch);
+                        if (batches.size() == 2) throw new IllegalStateException("sink failed");
+                    }).run();
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("sink failed", e.getMessage());
+        }
+        // the loop ended at the failed batch, which is left in the list
+        assertEquals(2, batches.size());
+        assertEquals(MAX_BATCH * 2, counter[0]);
+        assertEquals(MAX_BATCH, batches.get(1).size());
+    }
+}
@@ -6,6 +6,7 @@ import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.Test;
 import veinthrough.api.async.LoopRunnable;
+import veinthrough.api.collection.MpmcArrayQueue;
 import veinthrough.test.AbstractUnitTester;
 import veinthrough.test.exception.StreamExceptionTest;
 
@@ -60,7 +61,8 @@ public class BlockingQueueTest extends AbstractUnitTester {
     private static File DUMMY = new File("");
     private static final int FILE_QUEUE_SIZE = 10;
     private static final int SEARCH_THREADS = 10;
-    private static final BlockingQueue<File> queue = new ArrayBlockingQueue<>(FILE_QUEUE_SIZE);
+    // lock-free, instead of ArrayBlockingQueue whose single lock is contended by the search threads
+    private static final BlockingQueue<File> queue = new MpmcArrayQueue<>(FILE_QUEUE_SIZE);
     private static final String directory =
             "D:\\Cloud\\Projects\\IdeaProjects\\veinthrough\\veinthrough-test\\src\\test\\java\\veinthrough\\test";
     private static final String keyword = "AbstractUnitTester";
@@ -0,0 +1,95 @@
+package veinthrough.test.async;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import veinthrough.api.async.CatchUp;
+import veinthrough.api.async.LoopCallable;
+import veinthrough.api.async.LoopRunnable;
+import veinthrough.test.AbstractUnitTester;
+
+import static org.junit.Assert.*;
+import static veinthrough.api.util.MethodLog.methodLog;
+
+/**
+ * @author veinthrough
+ * <p>
+ * LoopRunnable/LoopCallable.sleepyAtFixedRate() vs sleepyAtInterval():
+ * fixed rate根据System.nanoTime()计算下一次tick, fixed delay在每次task之后sleep(interval).
+ * @see veinthrough.api.async.CatchUp
+ * <p>---------------------------------------------------------
+ * <pre>
+ * Tests:
+ * 1. task执行PERIOD/2, 在TIME内: fixed delay执行TIME/(1.5*PERIOD)次, fixed rate执行TIME/PERIOD次
+ * 2. 第一次task执行OVERRUN个PERIOD:
+ *   SKIP: 丢弃错过的ticks, 之后的ticks保持相位
+ *   BURST: 立刻连续执行错过的ticks, 总次数和没有overrun时相同
+ * 3. LoopCallable: result
+ * </pre>
+ */
+@Slf4j
+public class FixedRateTest extends AbstractUnitTester {
+    private static final int PERIOD = 20;
+    private static final int TIME = 1000;
+    private static final int OVERRUN = 5;
+
+    @Override
+    public void test() {
+    }
+
+    // 1. fixed delay vs fixed rate
+    // fixed delay: 33, fixed rate: 50
+    @Test
+    public void driftTest() {
+        int[] delay = {0};
+        LoopRunnable.sleepyAtInterval(() -> {
+            delay[0]++;
+            sleep(PERIOD / 2);
+        }, TIME, PERIOD).run();
+        int[] rate = {0};
+        LoopRunnable.sleepyAtFixedRate(() -> {
+            rate[0]++;
+            sleep(PERIOD / 2);
+        }, TIME, PERIOD, CatchUp.SKIP).run();
+        log.info(methodLog("Fixed delay", "" + delay[0], "Fixed rate", "" + rate[0]));
+        assertTrue(delay[0] <= TIME / (PERIOD * 3 / 2) + 1);
+        assertTrue(rate[0] > delay[0]);
+        assertTrue(Math.abs(rate[0] - TIME / PERIOD) <= 2);
+    }
+
+    // 2. catch up
+    // SKIP: 45 ticks, BURST: 50 ticks
+    @Test
+    public void catchUpTest() {
+        int skip = ticksWithOverrun(CatchUp.SKIP);
+        int burst = ticksWithOverrun(CatchUp.BURST);
+        log.info(methodLog("SKIP", "" + skip, "BURST", "" + burst));
+        assertTrue(Math.abs(burst - TIME / PERIOD) <= 2);
+        assertTrue(skip <= burst - OVERRUN + 2);
+    }
+
+    // 3. LoopCallable
+    @Test
+    public void callableTest() throws Exception {
+        int[] counter = {0};
+        assertEquals(10, (int) LoopCallable.sleepyAtFixedRate(
+                () -> ++counter[0],
+                () -> counter[0] >= 10,
+                PERIOD).call());
+    }
+
+    private static int ticksWithOverrun(CatchUp catchUp) {
+        int[] ticks = {0};
+        LoopRunnable.sleepyAtFixedRate(() -> {
+            if (++ticks[0] == 1) sleep(PERIOD * OVERRUN + PERIOD / 2);
+        }, TIME, PERIOD, catchUp).run();
+        return ticks[0];
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package veinthrough.test.async;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import veinthrough.api._interface.Condition;
+import veinthrough.api.async.HashedWheelTimer;
+import veinthrough.api.async.LoopHandle;
+import veinthrough.api.async.LoopRunnable;
+import veinthrough.test.AbstractUnitTester;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.*;
+import static veinthrough.api.util.MethodLog.methodLog;
+
+/**
+ * @author veinthrough
+ * <p>
+ * HashedWheelTimer: 一个ticking thread驱动所有timeout的过期.
+ * @see veinthrough.api.async.HashedWheelTimer
+ * <p>---------------------------------------------------------
+ * <pre>
+ * Tests:
+ * 1. newTimeout/cancel: 过期的task执行, cancel的task不执行
+ * 2. deadline: 过期时由ticking thread设置标志
+ * 3. LoopRunnable.wheeledAtInterval(): LOOPS个循环的interval/timeout都注册到同一个timer
+ * 4. loop由condition/cancel提前终止: timeout被cancel, 不留在wheel中
+ * </pre>
+ */
+@Slf4j
+public class HashedWheelTimerTest extends AbstractUnitTester {
+    private static final int LOOPS = 10000;
+    private static final int TIMEOUTS = 1000;
+    private static final int DELAY = 50;
+
+    @Override
+    public void test() {
+    }
+
+    // 1. newTimeout/cancel
+    @Test
+    public void timeoutTest() throws InterruptedException {
+        HashedWheelTimer timer = new HashedWheelTimer();
+        CountDownLatch expired = new CountDownLatch(TIMEOUTS);
+        AtomicInteger cancelledRun = new AtomicInteger();
+        long startTime = System.currentTimeMillis();
+        IntStream.range(0, TIMEOUTS)
+                .forEach(i -> timer.newTimeout(expired::countDown, DELAY + i % DELAY, MILLISECONDS));
+        List<HashedWheelTimer.Timeout> cancelled = IntStream.range(0, TIMEOUTS)
+                .mapToObj(i -> timer.newTimeout(cancelledRun::incrementAndGet, DELAY, MILLISECONDS))
+                .collect(Collectors.toList());
+        cancelled.forEach(HashedWheelTimer.Timeout::cancel);
+        assertTrue(expired.await(10, SECONDS));
+        long duration = System.currentTimeMillis() - startTime;
+        Thread.sleep(DELAY);
+        log.info(methodLog("Duration", "" + duration));
+        assertTrue(duration >= DELAY);
+        assertEquals(0, cancelledRun.get());
+        timer.stop();
+    }
+
+    // 2. deadline
+    @Test
+    public void deadlineTest() throws InterruptedException {
+        HashedWheelTimer timer = new HashedWheelTimer();
+        Condition deadline = timer.deadline(DELAY);
+        assertFalse(deadline.met());
+        Thread.sleep(DELAY * 3);
+        assertTrue(deadline.met());
+        timer.stop();
+    }
+
+    // 3. LoopRunnable.wheeledAtInterval()
+    @Test
+    public void wheeledLoopTest() throws InterruptedException, ExecutionException {
+        AtomicInteger counter = new AtomicInteger();
+        AtomicInteger finished = new AtomicInteger();
+        List<LoopHandle<Void>> handles = IntStream.range(0, LOOPS)
+                .mapToObj(i -> LoopRunnable.wheeledAtInterval(
+                        counter::incrementAndGet,
+                        // timeout
+                        DELAY * 4,
+                        // interval
+                        DELAY,
+                        finished::incrementAndGet))
+                .collect(Collectors.toList());
+        for (LoopHandle<Void> handle : handles) handle.get();
+        log.info(methodLog(
+                "Loops", "" + LOOPS,
+                "Ticks", "" + counter.get(),
+                "Finished", "" + finished.get()));
+        assertEquals(LOOPS, finished.get());
+    }
+
+    // 4. timeout cancelled when the loop ends early
+    @Test
+    public void cancelledDeadlineTest() throws InterruptedException, ExecutionException {
+        HashedWheelTimer timer = new HashedWheelTimer();
+        AtomicInteger counter = new AtomicInteger();
+        // ended by condition long before timeout
+        LoopHandle<Void> ended = LoopRunnable.wheeledAtInterval(timer, counter::incrementAndGet,
+                () -> counter.get() >= 3, DELAY * 100, 1, () -> {});
+        // ended by cancel
+        LoopHandle<Void> cancelled = LoopRunnable.wheeledAtInterval(timer, () -> {}, DELAY * 100, DELAY, () -> {});
+        ended.get();
+        cancelled.cancel(false);
+        // a tick running meanwhile is done
+        Thread.sleep(DELAY * 2);
+        log.info(methodLog("Pending timeouts", "" + timer.pendingTimeouts()));
+        assertEquals(0, timer.pendingTimeouts());
+        timer.stop();
+    }
+}
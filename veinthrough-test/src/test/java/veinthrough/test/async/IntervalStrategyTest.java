@@ -0,0 +1,113 @@
+package veinthrough.test.async;
+
+import com.google.common.collect.ImmutableMap;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import veinthrough.api.async.IntervalStrategy;
+import veinthrough.api.async.LoopCallable;
+import veinthrough.api.async.LoopRunnable;
+import veinthrough.test.AbstractUnitTester;
+
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+import static veinthrough.api.util.MethodLog.methodLog;
+
+/**
+ * @author veinthrough
+ * <p>
+ * LoopRunnable/LoopCallable.adaptive(): task报告是否有work done, IntervalStrategy决定idle多久.
+ * @see veinthrough.api.async.IntervalStrategy
+ * <p>---------------------------------------------------------
+ * <pre>
+ * Tests:
+ * 1. 前BUSY次iteration有work, 然后没有work, 比较不同strategy在TIME内的iteration次数:
+ *   fixed: 每次都sleep, 忙的时候反应慢
+ *   backoff/jittered: 忙的时候不sleep, 闲的时候interval加倍
+ *   spinYieldPark: 忙的时候不idle, 闲的时候spin -> yield -> park
+ * 2. interrupt: strategy抛出InterruptedException, loop终止
+ * 3. LoopCallable: workDone判断result
+ * 4. interrupt: task一直有work, 所有strategy仍然可以interrupt
+ * </pre>
+ */
+@Slf4j
+public class IntervalStrategyTest extends AbstractUnitTester {
+    private static final int BUSY = 100;
+    private static final int TIME = 500;
+    private static final int INTERVAL = 10;
+
+    @Override
+    public void test() {
+    }
+
+    // 1. iterations within TIME
+    // fixed: 47, backoff: 112, jittered: 114, spinYieldPark: 619
+    @Test
+    public void strategyTest() {
+        ImmutableMap.<String, Supplier<IntervalStrategy>>of(
+                "fixed", () -> IntervalStrategy.fixed(INTERVAL),
+                "backoff", () -> IntervalStrategy.backoff(0, INTERVAL * 10),
+                "jittered", () -> IntervalStrategy.jittered(0, INTERVAL * 10),
+                "spinYieldPark", IntervalStrategy::spinYieldPark)
+                .forEach((name, strategy) -> {
+                    int[] iterations = {0};
+                    LoopRunnable.adaptive(
+                            () -> ++iterations[0] <= BUSY,
+                            TIME,
+                            strategy.get(),
+                            () -> log.info(methodLog(name, "Iterations", "" + iterations[0])))
+                            .run();
+                    assertTrue(iterations[0] > 0);
+                });
+    }
+
+    // 2. interrupt
+    @Test
+    public void interruptTest() throws InterruptedException {
+        Thread loop = new Thread(LoopRunnable.adaptive(
+                () -> false,
+                IntervalStrategy.spinYieldPark()));
+        loop.start();
+        Thread.sleep(INTERVAL);
+        loop.interrupt();
+        loop.join(TIME);
+        assertFalse(loop.isAlive());
+    }
+
+    // 3. LoopCallable: workDone判断result
+    @Test
+    public void callableTest() throws Exception {
+        int[] counter = {0};
+        Callable<Integer> loop = LoopCallable.adaptive(
+                () -> ++counter[0],
+                // work done while counter <= BUSY
+                result -> result <= BUSY,
+                () -> counter[0] >= BUSY * 2,
+                IntervalStrategy.backoff(0, INTERVAL));
+        assertEquals(BUSY * 2, (int) loop.call());
+    }
+
+    // 4. interrupt while the task always reports work done
+    @Test
+    public void busyInterruptTest() {
+        ImmutableMap.<String, Supplier<IntervalStrategy>>of(
+                "fixed", () -> IntervalStrategy.fixed(0),
+                "backoff", () -> IntervalStrategy.backoff(0, INTERVAL * 10),
+                "jittered", () -> IntervalStrategy.jittered(0, INTERVAL * 10),
+                "spinYieldPark", IntervalStrategy::spinYieldPark)
+                .forEach((name, strategy) -> {
+                    Thread loop = new Thread(LoopRunnable.adaptive(() -> true, strategy.get()));
+                    try {
+                        loop.start();
+                        Thread.sleep(INTERVAL);
+                        loop.interrupt();
+                        loop.join(TIME);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    log.info(methodLog(name, "Alive", "" + loop.isAlive()));
+                    assertFalse(name, loop.isAlive());
+                });
+    }
+}
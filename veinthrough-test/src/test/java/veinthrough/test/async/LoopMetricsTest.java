@@ -0,0 +1,149 @@
+package veinthrough.test.async;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import veinthrough.api.async.LoopCallable;
+import veinthrough.api.async.LoopMetrics;
+import veinthrough.api.async.LoopMetricsRegistry;
+import veinthrough.api.async.LoopRunnable;
+import veinthrough.test.AbstractUnitTester;
+
+import javax.management.MBeanServer;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+import static veinthrough.api.util.MethodLog.methodLog;
+
+/**
+ * @author veinthrough
+ * <p>
+ * LoopRunnable/LoopCallable.monitored(): 每次循环记录到LoopMetrics, LoopMetricsRegistry轮询/JMX export.
+ * @see veinthrough.api.async.LoopMetrics
+ * @see veinthrough.api.async.LoopMetricsRegistry
+ * <p>---------------------------------------------------------
+ * <pre>
+ * Tests:
+ * 1. termination reason: condition/timeout/interrupt/exception
+ * 2. task latency/overruns: task sleeps longer than interval every other iteration
+ * 3. LoopCallable: result and iterations
+ * 4. registry: the same name gets the same metrics, exported over JMX
+ * 5. condition + timeout: whichever first, the same rule as other loops
+ * </pre>
+ */
+@Slf4j
+public class LoopMetricsTest extends AbstractUnitTester {
+    private static final int TIME = 200;
+    private static final int INTERVAL = 10;
+    private static final int ITERATIONS = 10;
+
+    @Override
+    public void test() {
+    }
+
+    // 1. termination reason
+    @Test
+    public void terminationTest() throws InterruptedException {
+        LoopMetrics metrics = new LoopMetrics("terminationTest");
+        // condition
+        int[] counter = {0};
+        LoopRunnable.monitored(metrics, () -> counter[0]++, () -> counter[0] >= ITERATIONS, 0, () -> {}).run();
+        assertEquals(ITERATIONS, metrics.getIterations());
+        assertEquals("CONDITION", metrics.getLastTermination());
+        // timeout
+        LoopRunnable.monitored(metrics, () -> {}, TIME, INTERVAL, () -> {}).run();
+        assertEquals("TIMEOUT", metrics.getLastTermination());
+        // interrupt
+        Thread loop = new Thread(LoopRunnable.monitored(metrics, () -> {}, INTERVAL));
+        loop.start();
+        Thread.sleep(INTERVAL * 3);
+        loop.interrupt();
+        loop.join(TIME);
+        assertFalse(loop.isAlive());
+        assertEquals("INTERRUPT", metrics.getLastTermination());
+        // exception
+        try {
+            LoopRunnable.monitored(metrics, () -> {
+                throw new IllegalStateException("failed");
+            }, INTERVAL).run();
+            fail();
+        } catch (IllegalStateException ignored) {
+        }
+        assertEquals("EXCEPTION", metrics.getLastTermination());
+        assertEquals(1, metrics.getConditionTerminations());
+        assertEquals(1, metrics.getTimeoutTerminations());
+        assertEquals(1, metrics.getInterruptTerminations());
+        assertEquals(1, metrics.getExceptionTerminations());
+        log.info(methodLog(metrics.toString()));
+    }
+
+    // 2. task latency/overruns
+    // iterations: 10, latency(us) p50/p99/max: 8912/20180/20180, work/sleep(ms): 113/102, overruns: 5
+    @Test
+    public void overrunTest() {
+        LoopMetrics metrics = new LoopMetrics("overrunTest");
+        int[] counter = {0};
+        LoopRunnable.monitored(metrics, () -> {
+                    try {
+                        Thread.sleep(++counter[0] % 2 == 0 ? INTERVAL * 2 : 1);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                },
+                () -> counter[0] >= ITERATIONS, INTERVAL, () -> {}).run();
+        log.info(methodLog(metrics.toString()));
+        assertEquals(ITERATIONS, metrics.getIterations());
+        assertEquals(ITERATIONS / 2, metrics.getOverruns());
+        assertTrue(metrics.getTaskLatencyP99Micros() >= INTERVAL * 2 * 1000);
+        assertTrue(metrics.getTaskLatencyP50Micros() < metrics.getTaskLatencyP99Micros());
+        assertTrue(metrics.getSleepMillis() >= ITERATIONS * INTERVAL);
+        metrics.reset();
+        assertEquals(0, metrics.getIterations());
+        assertNull(metrics.getLastTermination());
+    }
+
+    // 3. LoopCallable
+    @Test
+    public void callableTest() throws Exception {
+        LoopMetrics metrics = new LoopMetrics("callableTest");
+        int[] counter = {0};
+        assertEquals(ITERATIONS, (int) LoopCallable.monitored(metrics,
+                () -> ++counter[0],
+                () -> counter[0] >= ITERATIONS, 0).call());
+        assertEquals(ITERATIONS, metrics.getIterations());
+        assertEquals("CONDITION", metrics.getLastTermination());
+    }
+
+    // 4. registry
+    @Test
+    public void registryTest() throws Exception {
+        LoopMetrics before = LoopMetricsRegistry.metrics("registryTest-before");
+        assertSame(before, LoopMetricsRegistry.metrics("registryTest-before"));
+        LoopMetricsRegistry.exportJmx();
+        LoopMetrics after = LoopMetricsRegistry.metrics("registryTest-after");
+        assertTrue(LoopMetricsRegistry.all().contains(before));
+        assertTrue(LoopMetricsRegistry.all().contains(after));
+
+        LoopRunnable.monitored(after, () -> {}, TIME / 4, INTERVAL, () -> {}).run();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        assertTrue(server.isRegistered(LoopMetricsRegistry.objectName("registryTest-before")));
+        assertEquals(after.getIterations(),
+                server.getAttribute(LoopMetricsRegistry.objectName("registryTest-after"), "Iterations"));
+        assertEquals("TIMEOUT",
+                server.getAttribute(LoopMetricsRegistry.objectName("registryTest-after"), "LastTermination"));
+    }
+
+    // 5. condition + timeout: whichever first
+    @Test
+    public void timeoutOrConditionTest() {
+        LoopMetrics metrics = new LoopMetrics("timeoutOrConditionTest");
+        int[] counter = {0};
+        // condition first
+        LoopRunnable.monitored(metrics, () -> counter[0]++, () -> counter[0] >= ITERATIONS,
+                TIME * 10, 0, () -> {}).run();
+        assertEquals(ITERATIONS, counter[0]);
+        assertEquals("CONDITION", metrics.getLastTermination());
+        // timeout first
+        LoopRunnable.monitored(metrics, () -> {}, () -> false, TIME, INTERVAL, () -> {}).run();
+        assertEquals("TIMEOUT", metrics.getLastTermination());
+    }
+}
@@ -0,0 +1,115 @@
+package veinthrough.test.async;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import veinthrough.api._interface.Condition;
+import veinthrough.api._interface.PrimitiveCondition;
+import veinthrough.api.async.CatchUp;
+import veinthrough.api.async.LoopRunnable;
+import veinthrough.test.AbstractUnitTester;
+
+import static org.junit.Assert.*;
+import static veinthrough.api.util.MethodLog.methodLog;
+
+/**
+ * @author veinthrough
+ * <p>
+ * PrimitiveCondition: 使用primitive boolean检查的Condition, 作为LoopRunnable/LoopCallable的terminator.
+ * @see veinthrough.api._interface.PrimitiveCondition
+ * <p>---------------------------------------------------------
+ * <pre>
+ * Tests:
+ * 1. combinators: and/or/not
+ * 2. countdown: 作为terminator, 循环执行n次
+ * 3. latch: 被另一个线程release
+ * 4. bridge: 原有的Condition仍然可以使用
+ * 5. condition + timeout of hyper()/sleepy(): 原有的语义, 都满足才终止
+ * 6. condition + timeout of sleepyAtFixedRate()/scheduled()/wheeled()/monitored()/batched(): 任意一个满足即终止
+ * </pre>
+ */
+@Slf4j
+public class PrimitiveConditionTest extends AbstractUnitTester {
+    private static final int THRESHOLD = 10;
+    private int counter;
+
+    @Override
+    public void test() {
+    }
+
+    // 1. combinators: and/or/not
+    @Test
+    public void combinatorTest() {
+        PrimitiveCondition never = PrimitiveCondition.never();
+        PrimitiveCondition always = PrimitiveCondition.always();
+        assertFalse(never.and(always).getAsBoolean());
+        assertTrue(never.or(always).getAsBoolean());
+        assertTrue(never.not().getAsBoolean());
+        // still a Condition
+        assertTrue(always.met());
+    }
+
+    // 2. countdown: 循环执行THRESHOLD次
+    @Test
+    public void countdownTest() {
+        counter = 0;
+        LoopRunnable.fastHyper(() -> counter++, PrimitiveCondition.countdown(THRESHOLD)).run();
+        log.info(methodLog("Counter", "" + counter));
+        assertEquals(THRESHOLD, counter);
+    }
+
+    // 3. latch: 被另一个线程release
+    @Test
+    public void latchTest() throws InterruptedException {
+        PrimitiveCondition.Latch latch = PrimitiveCondition.latch();
+        Thread loop = new Thread(LoopRunnable.fastHyper(() -> {
+        }, latch.or(PrimitiveCondition.deadline(THRESHOLD * 1000))));
+        loop.start();
+        latch.release();
+        loop.join();
+        assertTrue(latch.getAsBoolean());
+    }
+
+    // 4. bridge: 原有的Condition
+    @Test
+    public void bridgeTest() {
+        counter = 0;
+        Condition condition = () -> counter >= THRESHOLD;
+        LoopRunnable.hyper(() -> counter++, condition).run();
+        assertEquals(THRESHOLD, counter);
+        assertTrue(PrimitiveCondition.of(condition).getAsBoolean());
+    }
+
+    // 5. condition + timeout of hyper()/sleepy(): both met
+    @Test
+    public void timeoutAndConditionTest() {
+        counter = 0;
+        // condition met first, loops until timeout
+        long start = System.currentTimeMillis();
+        LoopRunnable.hyper(() -> counter++, () -> counter >= THRESHOLD, THRESHOLD).run();
+        long elapsed = System.currentTimeMillis() - start;
+        log.info(methodLog("Elapsed", "" + elapsed, "Counter", "" + counter));
+        assertTrue(elapsed >= THRESHOLD);
+        assertTrue(counter > THRESHOLD);
+        // timeout first, loops until the condition
+        counter = 0;
+        LoopRunnable.hyper(() -> counter++, () -> counter >= THRESHOLD * 1000, 0).run();
+        assertEquals(THRESHOLD * 1000, counter);
+    }
+
+    // 6. condition + timeout of the loops not in the legacy API: whichever first
+    @Test
+    public void timeoutOrConditionTest() {
+        counter = 0;
+        // condition first
+        LoopRunnable.sleepyAtFixedRate(() -> counter++, () -> counter >= THRESHOLD,
+                THRESHOLD * 1000, 1, CatchUp.SKIP, () -> {}).run();
+        assertEquals(THRESHOLD, counter);
+        // timeout first
+        long start = System.currentTimeMillis();
+        LoopRunnable.sleepyAtFixedRate(() -> counter++, () -> false,
+                THRESHOLD, 1, CatchUp.SKIP, () -> {}).run();
+        long elapsed = System.currentTimeMillis() - start;
+        log.info(methodLog("Elapsed", "" + elapsed));
+        assertTrue(elapsed < THRESHOLD * 1000);
+    }
+}
@@ -0,0 +1,101 @@
+package veinthrough.test.async;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import veinthrough.api.async.LoopCallable;
+import veinthrough.api.async.LoopHandle;
+import veinthrough.api.async.LoopRunnable;
+import veinthrough.test.AbstractUnitTester;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static veinthrough.api.util.MethodLog.methodLog;
+
+/**
+ * @author veinthrough
+ * <p>
+ * 使用LoopRunnable/LoopCallable.scheduled()在共享的scheduler上循环执行任务, 不会每个循环占用一个线程.
+ * @see veinthrough.api.async.LoopRunnable
+ * @see veinthrough.api.async.LoopCallable
+ * <p>---------------------------------------------------------
+ * <pre>
+ * Tests:
+ * 1. LOOPS个循环共享scheduler的少量线程, 直到condition
+ * 2. 通过LoopHandle.cancel()取消循环, 代替interrupt, 不执行finish
+ * 3. LoopCallable: LoopHandle完成时包含最后的result
+ * </pre>
+ */
+@Slf4j
+public class ScheduledLoopTest extends AbstractUnitTester {
+    private static final int LOOPS = 10000;
+    private static final int THRESHOLD = 5;
+    private static final int INTERVAL = 10;
+
+    @Override
+    public void test() {
+    }
+
+    // 1. LOOPS个循环共享scheduler的少量线程
+    @Test
+    public void manyLoopsTest() throws InterruptedException, ExecutionException {
+        AtomicInteger finished = new AtomicInteger();
+        int threadsBefore = Thread.activeCount();
+        List<LoopHandle<Void>> handles = IntStream.range(0, LOOPS)
+                .mapToObj(i -> {
+                    AtomicInteger counter = new AtomicInteger();
+                    return LoopRunnable.scheduledAtInterval(
+                            counter::incrementAndGet,
+                            // terminator
+                            () -> counter.get() >= THRESHOLD,
+                            INTERVAL,
+                            // finish
+                            finished::incrementAndGet);
+                })
+                .collect(Collectors.toList());
+        int threadsDuring = Thread.activeCount();
+        for (LoopHandle<Void> handle : handles) handle.get();
+        log.info(methodLog(
+                "Loops", "" + LOOPS,
+                "Finished", "" + finished.get(),
+                "Threads", threadsBefore + " -> " + threadsDuring));
+        assertEquals(LOOPS, finished.get());
+    }
+
+    // 2. 通过LoopHandle.cancel()取消循环, 不执行finish
+    @Test
+    public void cancelTest() throws InterruptedException {
+        AtomicInteger counter = new AtomicInteger();
+        AtomicInteger finished = new AtomicInteger();
+        LoopHandle<Void> handle = LoopRunnable.scheduledAtInterval(
+                counter::incrementAndGet,
+                INTERVAL,
+                finished::incrementAndGet);
+        Thread.sleep(INTERVAL * THRESHOLD);
+        assertTrue(handle.cancel(true));
+        // a running tick may still finish
+        Thread.sleep(INTERVAL);
+        int counted = counter.get();
+        Thread.sleep(INTERVAL * THRESHOLD);
+        log.info(methodLog("Counter", "" + counted));
+        assertTrue(handle.isCancelled());
+        assertEquals(counted, counter.get());
+        assertEquals(0, finished.get());
+    }
+
+    // 3. LoopCallable: LoopHandle完成时包含最后的result
+    @Test
+    public void resultTest() throws InterruptedException, ExecutionException {
+        AtomicInteger counter = new AtomicInteger();
+        LoopHandle<Integer> handle = LoopCallable.scheduledAtInterval(
+                counter::incrementAndGet,
+                () -> counter.get() >= THRESHOLD,
+                INTERVAL);
+        assertEquals(THRESHOLD, (int) handle.get());
+    }
+}
@@ -0,0 +1,110 @@
+package veinthrough.test.async;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import veinthrough.api.async.LoopCallable;
+import veinthrough.test.AbstractUnitTester;
+
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+import static veinthrough.api.util.MethodLog.methodLog;
+
+/**
+ * @author veinthrough
+ * <p>
+ * LoopCallable.streamed(): 每次iteration的result都发布到返回的Stream.
+ * <p>---------------------------------------------------------
+ * <pre>
+ * Tests:
+ * 1. stream包含每次的result, 顺序不变, loop终止时stream结束
+ * 2. backpressure: consumer慢时, loop最多领先capacity个result
+ * 3. close: 关闭stream终止endless loop
+ * 4. exception: 之前的result被消费后抛出CompletionException
+ * </pre>
+ */
+@Slf4j
+public class StreamedLoopTest extends AbstractUnitTester {
+    private static final int ITERATIONS = 1000;
+    private static final int CAPACITY = 8;
+    private static final int INTERVAL = 5;
+
+    @Override
+    public void test() {
+    }
+
+    // 1. results in order
+    @Test
+    public void resultsTest() {
+        AtomicInteger counter = new AtomicInteger();
+        List<Integer> results;
+        try (Stream<Integer> stream = LoopCallable.streamed(
+                counter::incrementAndGet,
+                () -> counter.get() >= ITERATIONS,
+                0, CAPACITY)) {
+            results = stream.collect(Collectors.toList());
+        }
+        assertEquals(IntStream.rangeClosed(1, ITERATIONS).boxed().collect(Collectors.toList()), results);
+    }
+
+    // 2. backpressure
+    @Test
+    public void backpressureTest() {
+        AtomicInteger produced = new AtomicInteger();
+        int[] consumed = {0};
+        int[] maxAhead = {0};
+        try (Stream<Integer> stream = LoopCallable.streamed(
+                produced::incrementAndGet,
+                () -> produced.get() >= CAPACITY * 4,
+                0, CAPACITY)) {
+            stream.forEach(result -> {
+                consumed[0]++;
+                maxAhead[0] = Math.max(maxAhead[0], produced.get() - consumed[0]);
+                try {
+                    Thread.sleep(INTERVAL);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        log.info(methodLog("Max ahead", "" + maxAhead[0]));
+        assertEquals(CAPACITY * 4, consumed[0]);
+        // capacity in queue + one blocked in put()
+        assertTrue(maxAhead[0] <= CAPACITY + 1);
+    }
+
+    // 3. close
+    @Test
+    public void closeTest() throws InterruptedException {
+        AtomicInteger counter = new AtomicInteger();
+        try (Stream<Integer> stream = LoopCallable.streamed(counter::incrementAndGet, INTERVAL, CAPACITY)) {
+            assertEquals(10, stream.limit(10).count());
+        }
+        Thread.sleep(INTERVAL * 4);
+        int stopped = counter.get();
+        Thread.sleep(INTERVAL * 4);
+        assertEquals(stopped, counter.get());
+    }
+
+    // 4. exception
+    @Test
+    public void exceptionTest() {
+        AtomicInteger counter = new AtomicInteger();
+        int[] consumed = {0};
+        try (Stream<Integer> stream = LoopCallable.streamed(() -> {
+            if (counter.incrementAndGet() > 3) throw new IllegalStateException("failed");
+            return counter.get();
+        }, 0, CAPACITY)) {
+            stream.forEach(result -> consumed[0]++);
+            fail();
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertEquals(3, consumed[0]);
+    }
+}
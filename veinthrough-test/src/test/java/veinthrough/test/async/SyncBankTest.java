@@ -17,6 +17,7 @@ import java.util.stream.DoubleStream;
 import java.util.stream.IntStream;
 
 import static veinthrough.api.util.Constants.MILLIS_PER_SECOND;
+import static veinthrough.api.util.MethodLog.event;
 import static veinthrough.api.util.MethodLog.exceptionLog;
 import static veinthrough.api.util.MethodLog.methodLog;
 
@@ -131,10 +132,11 @@ public class SyncBankTest extends AbstractUnitTester {
          */
         @Override
         public void transfer(int from, int to, double amount) throws InterruptedException {
-            log.debug(methodLog(0,
-                    "from", "" + from,
-                    "to", "" + to,
-                    "amount", "" + amount));
+            event("transfer").step(0)
+                    .kv("from", from)
+                    .kv("to", to)
+                    .kv("amount", amount)
+                    .debug(log);
             if (from == to) {
                 return;
             }
@@ -149,18 +151,18 @@ public class SyncBankTest extends AbstractUnitTester {
                 // (2) insufficient funds
                 // await may throw InterruptedException
                 while (accounts[from] < amount) {
-                    log.debug(methodLog(2,
-                            "Inefficient funds",
-                            "accounts[from]", "" + accounts[from],
-                            "amount", "" + amount));
+                    event("Inefficient funds").step(2)
+                            .kv("accounts[from]", accounts[from])
+                            .kv("amount", amount)
+                            .debug(log);
                     sufficientFunds.await();
                 }
 
                 // (3) sufficient funds
-                log.debug(methodLog(3,
-                        "Efficient funds",
-                        "accounts[from]", "" + accounts[from],
-                        "amount", "" + amount));
+                event("Efficient funds").step(3)
+                        .kv("accounts[from]", accounts[from])
+                        .kv("amount", amount)
+                        .debug(log);
 
                 // (4) transfer
                 log.info(methodLog(4,
@@ -231,11 +233,11 @@ public class SyncBankTest extends AbstractUnitTester {
         @Override
         public synchronized void transfer(int from, int to, double amount) throws InterruptedException {
             // (1) get lock
-            log.debug(methodLog(1,
-                    "Automatically lock",
-                    "from", "" + from,
-                    "to", "" + to,
-                    "amount", "" + amount));
+            event("Automatically lock").step(1)
+                    .kv("from", from)
+                    .kv("to", to)
+                    .kv("amount", amount)
+                    .debug(log);
             if (from == to) {
                 return;
             }
@@ -243,18 +245,18 @@ public class SyncBankTest extends AbstractUnitTester {
             // (2) insufficient funds
             // await may throw InterruptedException
             if (accounts[from] < amount) {
-                log.debug(methodLog(2,
-                        "Inefficient funds",
-                        "accounts[from]", "" + accounts[from],
-                        "amount", "" + amount));
+                event("Inefficient funds").step(2)
+                        .kv("accounts[from]", accounts[from])
+                        .kv("amount", amount)
+                        .debug(log);
                 wait();
             }
 
             // (3) sufficient funds
-            log.debug(methodLog(3,
-                    "Efficient funds",
-                    "accounts[from]", "" + accounts[from],
-                    "amount", "" + amount));
+            event("Efficient funds").step(3)
+                    .kv("accounts[from]", accounts[from])
+                    .kv("amount", amount)
+                    .debug(log);
 
             // (4) transfer
             log.info(methodLog(4,
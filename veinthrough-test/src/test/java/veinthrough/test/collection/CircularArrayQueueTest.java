@@ -2,23 +2,60 @@ package veinthrough.test.collection;
 
 import lombok.extern.slf4j.Slf4j;
 import org.junit.Test;
+import veinthrough.api.collection.BlockingCircularArrayQueue;
 import veinthrough.api.collection.CircularArrayQueue;
 import veinthrough.test.AbstractUnitTester;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.List;
 import java.util.Queue;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+import static org.junit.Assert.*;
+import static veinthrough.api.collection.CircularArrayQueue.OverflowPolicy.*;
 import static veinthrough.api.util.MethodLog.methodLog;
 
 
 /**
  * @author veinthrough
+ * <p>---------------------------------------------------------
+ * <pre>
+ * Tests:
+ * 1. add/remove in a bounded queue
+ * 2. overflow policies:
+ *   (1) DROP_NEWEST: offer() returns false when full, capacity 0 always full(only for DROP_NEWEST)
+ *   (2) GROW: capacity doubled, order kept when the elements wrap around
+ *   (3) OVERWRITE_OLDEST: the last CAPACITY elements kept, capacity not changed
+ *   (4) BlockingCircularArrayQueue: offer() waits until another thread polls, false if interrupted,
+ *   iterated over a snapshot while an offer is waiting
+ * 3. ensureCapacity/trimToSize
+ * 4. bulk offerAll()/drainTo():
+ *   (1) elements wrap around the end of the array, policies applied to the batch
+ *   (2) time: BATCH elements per batch vs one by one
+ *   (3) failures: nulls rejected before copied, nothing lost if the collection drained to throws
+ * 5. spliterator:
+ *   (1) split in half when wrapped around, SIZED/SUBSIZED
+ *   (2) parallelStream() gets the same result as stream()
+ *   (3) fail-fast
+ * </pre>
  */
 @Slf4j
 public class CircularArrayQueueTest extends AbstractUnitTester {
+    private static final int CAPACITY = 3;
+    private static final int TIMEOUT = 100;
+    private static final int BATCH = 1000;
+    private static final int ROUNDS = 10000;
+
     @Override
     public void test() {
     }
 
+    // 1. add/remove
     @Test
     public void circularArrayQueueTest() {
         Queue<String> q = new CircularArrayQueue<>(5);
@@ -32,4 +69,223 @@ public class CircularArrayQueueTest extends AbstractUnitTester {
         q.remove();
         log.info(methodLog(q.toString()));
     }
+
+    // 2.(1) DROP_NEWEST
+    @Test
+    public void dropNewestTest() {
+        CircularArrayQueue<Integer> q = new CircularArrayQueue<>(CAPACITY);
+        for (int i = 0; i < CAPACITY; i++) assertTrue(q.offer(i));
+        assertFalse(q.offer(CAPACITY));
+        assertEquals("[0, 1, 2]", q.toString());
+        // capacity 0: always full
+        CircularArrayQueue<Integer> empty = new CircularArrayQueue<>(0);
+        assertFalse(empty.offer(0));
+        assertEquals(0, empty.offerAll(new Integer[]{0, 1}, 0, 2));
+        assertNull(empty.poll());
+        assertEquals(0, empty.drainTo(new ArrayList<>(), 1));
+        empty.trimToSize();
+        assertEquals("[]", empty.toString());
+        assertEquals(0, empty.stream().count());
+        for (CircularArrayQueue.OverflowPolicy policy : new CircularArrayQueue.OverflowPolicy[]{GROW, OVERWRITE_OLDEST}) {
+            try {
+                new CircularArrayQueue<Integer>(0, policy);
+                fail();
+            } catch (IllegalArgumentException ignored) {
+            }
+        }
+    }
+
+    // 2.(2) GROW
+    @Test
+    public void growTest() {
+        CircularArrayQueue<Integer> q = new CircularArrayQueue<>(CAPACITY, GROW);
+        q.offer(-1);
+        q.poll();
+        // wrap around then grow
+        for (int i = 0; i < CAPACITY * 3; i++) assertTrue(q.offer(i));
+        assertEquals(CAPACITY * 4, q.capacity());
+        assertEquals("[0, 1, 2, 3, 4, 5, 6, 7, 8]", q.toString());
+    }
+
+    // 2.(3) OVERWRITE_OLDEST
+    @Test
+    public void overwriteOldestTest() {
+        CircularArrayQueue<Integer> q = new CircularArrayQueue<>(CAPACITY, OVERWRITE_OLDEST);
+        for (int i = 0; i < CAPACITY * 3 + 1; i++) assertTrue(q.offer(i));
+        assertEquals(CAPACITY, q.capacity());
+        assertEquals("[7, 8, 9]", q.toString());
+        assertEquals(7, (int) q.poll());
+        assertTrue(q.offer(10));
+        assertEquals("[8, 9, 10]", q.toString());
+    }
+
+    // 2.(4) BlockingCircularArrayQueue
+    @Test
+    public void blockTest() throws InterruptedException {
+        CircularArrayQueue<Integer> q = new BlockingCircularArrayQueue<>(CAPACITY);
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < CAPACITY * 2; i++) q.offer(i);
+        });
+        producer.start();
+        producer.join(TIMEOUT);
+        // blocked when full
+        assertTrue(producer.isAlive());
+        assertEquals(CAPACITY, q.size());
+        assertEquals("[0, 1, 2]", q.toString());
+        assertEquals(3, q.stream().count());
+        for (int i = 0; i < CAPACITY * 2; i++) {
+            while (q.isEmpty()) Thread.yield();
+            assertEquals(i, (int) q.poll());
+        }
+        producer.join(TIMEOUT);
+        assertFalse(producer.isAlive());
+
+        // interrupted while waiting
+        for (int i = 0; i < CAPACITY; i++) q.offer(i);
+        boolean[] offered = {true};
+        Thread interrupted = new Thread(() -> offered[0] = q.offer(CAPACITY));
+        interrupted.start();
+        interrupted.interrupt();
+        interrupted.join(TIMEOUT);
+        assertFalse(offered[0]);
+        assertEquals(CAPACITY, q.size());
+    }
+
+    // 3. ensureCapacity/trimToSize
+    @Test
+    public void capacityTest() {
+        CircularArrayQueue<Integer> q = new CircularArrayQueue<>(CAPACITY);
+        for (int i = 0; i < CAPACITY; i++) q.offer(i);
+        q.poll();
+        q.offer(CAPACITY);
+        q.ensureCapacity(CAPACITY * 2);
+        assertEquals(CAPACITY * 2, q.capacity());
+        assertTrue(q.offer(CAPACITY + 1));
+        assertEquals("[1, 2, 3, 4]", q.toString());
+        q.poll();
+        q.trimToSize();
+        assertEquals(CAPACITY, q.capacity());
+        assertEquals("[2, 3, 4]", q.toString());
+        assertFalse(q.offer(CAPACITY + 2));
+    }
+
+    // 4.(1) bulk
+    @Test
+    public void bulkTest() {
+        CircularArrayQueue<Integer> q = new CircularArrayQueue<>(CAPACITY * 2);
+        Integer[] src = {0, 1, 2, 3, 4, 5, 6, 7};
+        assertEquals(2, q.offerAll(src, 0, 2));
+        q.poll();
+        // DROP_NEWEST: only 5 offered, wrapped around
+        assertEquals(5, q.offerAll(src, 2, 6));
+        assertEquals("[1, 2, 3, 4, 5, 6]", q.toString());
+        Integer[] dst = new Integer[8];
+        assertEquals(4, q.drainTo(dst, 1, 4));
+        assertArrayEquals(new Integer[]{null, 1, 2, 3, 4, null, null, null}, dst);
+        List<Integer> list = new ArrayList<>();
+        assertEquals(2, q.drainTo(list, 10));
+        assertEquals("[5, 6]", list.toString());
+        assertTrue(q.isEmpty());
+
+        CircularArrayQueue<Integer> grow = new CircularArrayQueue<>(CAPACITY, GROW);
+        assertEquals(src.length, grow.offerAll(src, 0, src.length));
+        assertEquals(src.length, grow.size());
+        CircularArrayQueue<Integer> ring = new CircularArrayQueue<>(CAPACITY, OVERWRITE_OLDEST);
+        ring.offer(-1);
+        assertEquals(CAPACITY, ring.offerAll(src, 0, src.length));
+        assertEquals("[5, 6, 7]", ring.toString());
+        ring.poll();
+        ring.offerAll(src, 0, 2);
+        assertEquals("[7, 0, 1]", ring.toString());
+    }
+
+    // 4.(2) bulk vs one by one(ms)
+    // one by one: 277, bulk: 20
+    @Test
+    public void bulkTimeTest() {
+        CircularArrayQueue<Integer> q = new CircularArrayQueue<>(BATCH);
+        Integer[] batch = new Integer[BATCH];
+        Arrays.fill(batch, 1);
+        for (int round = 0; round < 2; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < ROUNDS; i++) {
+                for (Integer e : batch) q.offer(e);
+                for (int j = 0; j < BATCH; j++) batch[j] = q.poll();
+            }
+            long oneByOne = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < ROUNDS; i++) {
+                q.offerAll(batch, 0, BATCH);
+                q.drainTo(batch, 0, BATCH);
+            }
+            long bulk = System.nanoTime() - start;
+            // the first round warms up
+            if (round == 1) log.info(methodLog(
+                    "one by one", "" + oneByOne / 1_000_000,
+                    "bulk", "" + bulk / 1_000_000));
+        }
+    }
+
+    // 4.(3) failures
+    @Test
+    public void bulkFailureTest() {
+        CircularArrayQueue<Integer> q = wrapped(CAPACITY);
+        try {
+            q.offerAll(new Integer[]{10, null, 11}, 0, 3);
+            fail();
+        } catch (NullPointerException ignored) {
+        }
+        assertEquals("[0, 1, 2]", q.toString());
+        List<Integer> rejecting = new ArrayList<Integer>() {
+            @Override
+            public boolean addAll(Collection<? extends Integer> c) {
+                throw new UnsupportedOperationException();
+            }
+        };
+        try {
+            q.drainTo(rejecting, CAPACITY);
+            fail();
+        } catch (UnsupportedOperationException ignored) {
+        }
+        assertEquals("[0, 1, 2]", q.toString());
+    }
+
+    // 5.(1) split in half
+    @Test
+    public void spliteratorTest() {
+        CircularArrayQueue<Integer> q = wrapped(8);
+        Spliterator<Integer> right = q.spliterator();
+        assertTrue(right.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED));
+        Spliterator<Integer> left = right.trySplit();
+        assertEquals(4, left.estimateSize());
+        assertEquals(4, right.estimateSize());
+        List<Integer> elements = new ArrayList<>();
+        left.forEachRemaining(elements::add);
+        right.forEachRemaining(elements::add);
+        assertEquals(IntStream.range(0, 8).boxed().collect(Collectors.toList()), elements);
+    }
+
+    // 5.(2) parallelStream
+    @Test
+    public void parallelStreamTest() {
+        CircularArrayQueue<Integer> q = wrapped(BATCH * 100);
+        assertEquals(q.stream().mapToLong(i -> i).sum(), q.parallelStream().mapToLong(i -> i).sum());
+        assertEquals(q.stream().collect(Collectors.toList()), q.parallelStream().collect(Collectors.toList()));
+    }
+
+    // 5.(3) fail-fast
+    @Test(expected = ConcurrentModificationException.class)
+    public void spliteratorFailFastTest() {
+        CircularArrayQueue<Integer> q = wrapped(8);
+        q.stream().forEach(i -> q.poll());
+    }
+
+    // n elements from 0, wrapped around the end of the array
+    private static CircularArrayQueue<Integer> wrapped(int n) {
+        CircularArrayQueue<Integer> q = new CircularArrayQueue<>(n);
+        for (int i = 0; i < n / 2; i++) q.offer(-1);
+        for (int i = 0; i < n / 2; i++) q.poll();
+        for (int i = 0; i < n; i++) q.offer(i);
+        return q;
+    }
 }
@@ -14,10 +14,15 @@ import veinthrough.test.guava.collection.MultiMapTest;
 import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
-import static veinthrough.api.collection.CollectionToMap.RETAIN_MANNER.RETAIN_FIRST;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static veinthrough.api.collection.CollectionToMap.RETAIN_MANNER.*;
 import static veinthrough.api.util.MethodLog.*;
 
 /**
@@ -60,6 +65,15 @@ import static veinthrough.api.util.MethodLog.*;
  *        @see TreeTest#treeMapTraverseTest()
  *        改变顺序: 不改变顺序/CollectionToMap.toUniqueMap()中使用Stream/Collectors可能会改变元素顺序
  *        duplicate keys: IllegalArgumentException/RETAIN_MANNER
+ *   (6) presized(by expectedKeys)/parallel, the same result as sequential:
+ *     <1> retain first/last/list: deterministic
+ *     <2> retain any: Collectors.toConcurrentMap()
+ *     <3> retain any only for parallel: IllegalArgumentException
+ *   @see CollectionToMap#parallelToUniqueMap(Collection, Function, RETAIN_MANNER)
+ *   @see CollectionToMap#parallelToUniqueMap(Collection, Function, RETAIN_MANNER, int)
+ *   @see CollectionToMap#parallelToListedMap(Collection, Function)
+ *   @see CollectionToMap#parallelToListedMap(Collection, Function, int)
+ *   (7) time of default sized/presized/parallel
  * </pre>
  */
 @Slf4j
@@ -69,6 +83,8 @@ public class CollectionToMapTest extends AbstractUnitTester {
             new Manager("Sid Sneaky", 800000D, 60000D);
     private static final Manager ceo =
             new Manager("Gus Greedy", 1000000D, 80000D);
+    private static final int ELEMENTS = 1_000_000;
+    private static final int KEYS = ELEMENTS / 2;
 
     @Override
     public void test() {
@@ -196,4 +212,83 @@ public class CollectionToMapTest extends AbstractUnitTester {
                         .toString()
         ));
     }
+
+    // 5.(6) presized/parallel
+    @Test
+    public void parallelTest() {
+        List<Integer> list = getLargeList();
+        Function<Integer, Integer> keyFunction = i -> i % KEYS;
+        for (RETAIN_MANNER manner : new RETAIN_MANNER[]{RETAIN_FIRST, RETAIN_LAST}) {
+            Map<Integer, Integer> sequential = list.stream()
+                    .collect(Collectors.toMap(
+                            keyFunction,
+                            Function.identity(),
+                            manner == RETAIN_FIRST ? (i1, i2) -> i1 : (i1, i2) -> i2));
+            assertEquals(sequential, CollectionToMap.toUniqueMap(list, keyFunction, manner));
+            assertEquals(sequential, CollectionToMap.toUniqueMap(list, keyFunction, manner, KEYS));
+            // 5.(6).<1> deterministic
+            assertEquals(sequential, CollectionToMap.parallelToUniqueMap(list, keyFunction, manner));
+            assertEquals(sequential, CollectionToMap.parallelToUniqueMap(list, keyFunction, manner, KEYS));
+        }
+        // 5.(6).<2> either element of the key
+        Map<Integer, Integer> any = CollectionToMap.parallelToUniqueMap(list, keyFunction, RETAIN_ANY);
+        assertEquals(KEYS, any.size());
+        any.forEach((key, value) -> assertEquals(key, keyFunction.apply(value)));
+        any = CollectionToMap.parallelToUniqueMap(list, keyFunction, RETAIN_ANY, KEYS);
+        assertEquals(KEYS, any.size());
+        any.forEach((key, value) -> assertEquals(key, keyFunction.apply(value)));
+
+        Map<Integer, List<Integer>> listed = CollectionToMap.toListedMap(list, keyFunction);
+        assertEquals(listed, CollectionToMap.toListedMap(list, keyFunction, KEYS));
+        assertEquals(listed, CollectionToMap.parallelToListedMap(list, keyFunction));
+        assertEquals(listed, CollectionToMap.parallelToListedMap(list, keyFunction, KEYS));
+        assertEquals(Lists.newArrayList(1, KEYS + 1), listed.get(1));
+    }
+
+    // 5.(6).<3> retain any only for parallel
+    @Test(expected = IllegalArgumentException.class)
+    public void retainAnyTest() {
+        CollectionToMap.toUniqueMap(getDataList(), s -> s.charAt(0), RETAIN_ANY);
+    }
+
+    // 5.(6).<3> retain any only for parallel
+    @Test(expected = IllegalArgumentException.class)
+    public void retainAnyIntMapTest() {
+        CollectionToMap.toUniqueIntMap(getDataList(), String::length, RETAIN_ANY);
+    }
+
+    // 5.(7) time(ms) of 1M elements to 500K keys, 1 CPU
+    // toMap(default sized): 52, toUniqueMap(presized): 62, parallelToUniqueMap(presized): 120,
+    // no gain without more CPUs, the up-front table of 500K keys not paid back on 1 CPU
+    @Test
+    public void parallelTimeTest() {
+        List<Integer> list = getLargeList();
+        Function<Integer, Integer> keyFunction = i -> i % KEYS;
+        // warm up
+        for (int i = 0; i < 3; i++) {
+            list.stream().collect(Collectors.toMap(keyFunction, Function.identity(), (i1, i2) -> i1));
+            CollectionToMap.toUniqueMap(list, keyFunction, RETAIN_FIRST, KEYS);
+            CollectionToMap.parallelToUniqueMap(list, keyFunction, RETAIN_FIRST, KEYS);
+        }
+        long defaultSized = time(() ->
+                list.stream().collect(Collectors.toMap(keyFunction, Function.identity(), (i1, i2) -> i1)));
+        long presized = time(() -> CollectionToMap.toUniqueMap(list, keyFunction, RETAIN_FIRST, KEYS));
+        long parallel = time(() -> CollectionToMap.parallelToUniqueMap(list, keyFunction, RETAIN_FIRST, KEYS));
+        log.info(methodLog(
+                "CPUs", "" + Runtime.getRuntime().availableProcessors(),
+                "toMap(default sized)", "" + defaultSized,
+                "toUniqueMap(presized)", "" + presized,
+                "parallelToUniqueMap(presized)", "" + parallel));
+        assertTrue(presized > 0 && parallel > 0);
+    }
+
+    private static List<Integer> getLargeList() {
+        return IntStream.range(0, ELEMENTS).boxed().collect(Collectors.toList());
+    }
+
+    private static long time(Supplier<Map<Integer, Integer>> collect) {
+        long start = System.currentTimeMillis();
+        assertEquals(KEYS, collect.get().size());
+        return System.currentTimeMillis() - start;
+    }
 }
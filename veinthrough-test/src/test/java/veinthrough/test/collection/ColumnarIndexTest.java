@@ -0,0 +1,141 @@
+package veinthrough.test.collection;
+
+import com.google.common.collect.Lists;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import veinthrough.api.collection.CollectionToMap;
+import veinthrough.api.collection.ColumnarIndex;
+import veinthrough.test.AbstractUnitTester;
+import veinthrough.test._class.Employee;
+import veinthrough.test._class.Manager;
+
+import java.lang.management.ManagementFactory;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+import static veinthrough.api.util.MethodLog.methodLog;
+
+/**
+ * @author veinthrough
+ * <p>
+ * ColumnarIndex: grouping by key in CSR arrays instead of an ArrayList per key.
+ * @see veinthrough.api.collection.ColumnarIndex
+ * @see CollectionToMapTest
+ * <p>---------------------------------------------------------
+ * <pre>
+ * Tests:
+ * 1. the same groups as toListedMap(), keys sorted, encounter order in a group
+ * 2. comparator order, absent keys, List views
+ * 3. CollectionToMap.toColumnarMap(): LongIdentifiable Employee/Manager
+ * 4. 1M elements to 500K keys, toListedMap() vs toColumnarMap():
+ *   (1) allocation per element, including the garbage of the build
+ *   (2) retained heap per element after GC
+ * </pre>
+ */
+@Slf4j
+public class ColumnarIndexTest extends AbstractUnitTester {
+    private static final int ELEMENTS = 1_000_000;
+    private static final int KEYS = ELEMENTS / 2;
+
+    @Override
+    public void test() {
+    }
+
+    private List<String> getDataList() {
+        return Lists.newArrayList("aardvark", "elephant", "koala", "eagle", "kangaroo");
+    }
+
+    // 1. the same as toListedMap()
+    @Test
+    public void listedMapTest() {
+        Map<Character, List<String>> listed = CollectionToMap.toListedMap(getDataList(), str -> str.charAt(0));
+        ColumnarIndex<Character, String> columnar = CollectionToMap.toColumnarMap(getDataList(), str -> str.charAt(0));
+        log.info(methodLog("listed", listed.toString(), "columnar", columnar.toString()));
+        assertEquals(listed, columnar);
+        assertEquals(columnar, listed);
+        assertEquals(Lists.newArrayList('a', 'e', 'k'), Lists.newArrayList(columnar.keySet()));
+        assertEquals(Lists.newArrayList("koala", "kangaroo"), columnar.get('k'));
+    }
+
+    // 2. comparator, absent keys, views
+    @Test
+    public void comparatorTest() {
+        ColumnarIndex<Integer, String> byLength = CollectionToMap.toColumnarMap(
+                getDataList(), String::length, Comparator.reverseOrder());
+        assertEquals(2, byLength.groupCount());
+        assertEquals(Integer.valueOf(8), byLength.keyAt(0));
+        assertEquals(Lists.newArrayList("aardvark", "elephant", "kangaroo"), byLength.groupAt(0));
+        assertEquals(Lists.newArrayList("koala", "eagle"), byLength.groupAt(1));
+        assertNull(byLength.get(4));
+        assertNull(byLength.get("5"));
+        assertFalse(byLength.containsKey(null));
+        try {
+            byLength.get(5).add("panda");
+            fail();
+        } catch (UnsupportedOperationException ignored) {
+        }
+    }
+
+    // 3. LongIdentifiable Employee/Manager
+    @Test
+    public void identifiableTest() {
+        Employee worker = new Employee("Carl Cracker", 60000D);
+        Manager ceo = new Manager("Gus Greedy", 1000000D, 80000D);
+        ColumnarIndex<Long, Employee> columnar = CollectionToMap.toColumnarMap(
+                Lists.newArrayList(ceo, worker, ceo));
+        assertEquals(CollectionToMap.toListedMap(Lists.newArrayList(ceo, worker, ceo)), columnar);
+        assertEquals(2, columnar.get(ceo.getId()).size());
+    }
+
+    // 4. bytes per element, 1M elements to 500K keys
+    // allocated: toListedMap() 80.4, toColumnarMap() 70.4
+    // retained(keys included): toListedMap() 70.7, toColumnarMap() 20.0
+    @Test
+    public void footprintTest() {
+        List<Integer> list = IntStream.range(0, ELEMENTS).boxed().collect(Collectors.toList());
+        Function<Integer, Integer> keyFunction = i -> i % KEYS;
+        // warm up
+        assertEquals(CollectionToMap.toListedMap(list, keyFunction), CollectionToMap.toColumnarMap(list, keyFunction));
+
+        double listedAllocated = allocatedPerElement(() -> CollectionToMap.toListedMap(list, keyFunction));
+        double columnarAllocated = allocatedPerElement(() -> CollectionToMap.toColumnarMap(list, keyFunction));
+        double listedRetained = retainedPerElement(() -> CollectionToMap.toListedMap(list, keyFunction));
+        double columnarRetained = retainedPerElement(() -> CollectionToMap.toColumnarMap(list, keyFunction));
+        log.info(methodLog(
+                "allocated: toListedMap()", String.format("%.1f", listedAllocated),
+                "allocated: toColumnarMap()", String.format("%.1f", columnarAllocated),
+                "retained: toListedMap()", String.format("%.1f", listedRetained),
+                "retained: toColumnarMap()", String.format("%.1f", columnarRetained)));
+        assertTrue(columnarAllocated < listedAllocated);
+        assertTrue(columnarRetained * 2 < listedRetained);
+    }
+
+    private static double allocatedPerElement(Supplier<Map<Integer, List<Integer>>> build) {
+        com.sun.management.ThreadMXBean bean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long before = bean.getThreadAllocatedBytes(threadId);
+        assertEquals(KEYS, build.get().size());
+        return (double) (bean.getThreadAllocatedBytes(threadId) - before) / ELEMENTS;
+    }
+
+    private static double retainedPerElement(Supplier<Map<Integer, List<Integer>>> build) {
+        long before = usedAfterGc();
+        Map<Integer, List<Integer>> map = build.get();
+        long retained = usedAfterGc() - before;
+        assertEquals(KEYS, map.size());
+        return (double) retained / ELEMENTS;
+    }
+
+    private static long usedAfterGc() {
+        System.gc();
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,156 @@
+package veinthrough.test.collection;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import veinthrough.api.collection.CollectionToMap;
+import veinthrough.api.collection.FrozenMap;
+import veinthrough.test.AbstractUnitTester;
+import veinthrough.test._class.Employee;
+import veinthrough.test._class.Manager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+import static veinthrough.api.collection.CollectionToMap.RETAIN_MANNER.RETAIN_FIRST;
+import static veinthrough.api.util.MethodLog.methodLog;
+
+/**
+ * @author veinthrough
+ * <p>
+ * FrozenMap: read-only map by CHD perfect hashing.
+ * @see veinthrough.api.collection.FrozenMap
+ * @see CollectionToMapTest
+ * <p>---------------------------------------------------------
+ * <pre>
+ * Tests:
+ * 1. the same as HashMap: get()/containsKey()/entrySet()/equals(), absent keys
+ * 2. keys sharing the same hashCode("Aa"/"BB") to the overflow
+ * 3. CollectionToMap.toFrozenMap(): LongIdentifiable Employee/Manager, immutable
+ * 4. 1M keys: build time, footprint, time of random get() HashMap vs FrozenMap
+ * 5. adversarial hashCodes all in 1 bucket: never displaced into free slots, build ends by the overflow
+ * </pre>
+ */
+@Slf4j
+public class FrozenMapTest extends AbstractUnitTester {
+    private static final int KEYS = 1_000_000;
+    private static final int LOOKUPS = 10_000_000;
+
+    @Override
+    public void test() {
+    }
+
+    // 1. the same as HashMap
+    @Test
+    public void hashMapTest() {
+        Map<String, Integer> map = IntStream.range(0, 10_000).boxed()
+                .collect(Collectors.toMap(i -> "key" + i, Function.identity()));
+        FrozenMap<String, Integer> frozen = FrozenMap.copyOf(map);
+        assertEquals(map.size(), frozen.size());
+        map.forEach((key, value) -> assertEquals(value, frozen.get(key)));
+        assertNull(frozen.get("key-1"));
+        assertNull(frozen.get(null));
+        assertFalse(frozen.containsKey(1));
+        assertEquals(map, frozen);
+        assertEquals(frozen, map);
+        assertTrue(FrozenMap.copyOf(new HashMap<>()).isEmpty());
+    }
+
+    // 2. keys sharing the same hashCode
+    @Test
+    public void sharedHashCodeTest() {
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        FrozenMap<String, Integer> frozen = FrozenMap.copyOf(ImmutableMap.of("Aa", 1, "BB", 2, "C", 3));
+        assertEquals(Integer.valueOf(1), frozen.get("Aa"));
+        assertEquals(Integer.valueOf(2), frozen.get("BB"));
+        assertEquals(Integer.valueOf(3), frozen.get("C"));
+        assertEquals(3, frozen.entrySet().size());
+        assertEquals(3, Lists.newArrayList(frozen.entrySet()).size());
+    }
+
+    // 3. CollectionToMap.toFrozenMap()
+    @Test
+    public void toFrozenMapTest() {
+        Employee worker = new Employee("Carl Cracker", 60000D);
+        Manager ceo = new Manager("Gus Greedy", 1000000D, 80000D);
+        FrozenMap<Long, Employee> frozen = CollectionToMap.toFrozenMap(
+                Lists.newArrayList(worker, ceo, worker), RETAIN_FIRST);
+        log.info(methodLog(frozen.toString()));
+        assertEquals(2, frozen.size());
+        assertSame(ceo, frozen.get(ceo.getId()));
+        try {
+            frozen.put(0L, worker);
+            fail();
+        } catch (UnsupportedOperationException ignored) {
+        }
+    }
+
+    // 4. 1M Integer keys, 10M random get(), 1 CPU
+    // build(ms): 1292(cold JIT, about 500 warmed up), footprint(bytes per key): 9.9(HashMap about 40)
+    // HashMap get(ms): 945, FrozenMap get(ms): 1016
+    // the same cache misses per get(), HashMap's Node is allocated next to its value here
+    @Test
+    public void lookupTimeTest() {
+        List<Integer> list = IntStream.range(0, KEYS).map(i -> i * 7).boxed().collect(Collectors.toList());
+        Map<Integer, Integer> map = CollectionToMap.toUniqueMap(list, Function.identity(), RETAIN_FIRST);
+        FrozenMap<Integer, Integer> frozen = FrozenMap.copyOf(map);
+        Integer[] probes = new Integer[LOOKUPS];
+        Random random = new Random(17);
+        for (int i = 0; i < LOOKUPS; i++) probes[i] = list.get(random.nextInt(KEYS));
+        // warm up
+        lookup(map, probes);
+        lookup(frozen, probes);
+
+        long start = System.currentTimeMillis();
+        long hashSum = lookup(map, probes);
+        long hashTime = System.currentTimeMillis() - start;
+        start = System.currentTimeMillis();
+        long frozenSum = lookup(frozen, probes);
+        long frozenTime = System.currentTimeMillis() - start;
+        log.info(methodLog(
+                "build(ms)", "" + frozen.buildNanos() / 1_000_000,
+                "footprint(bytes per key)", String.format("%.1f", (double) frozen.footprint() / KEYS),
+                "HashMap get(ms)", "" + hashTime,
+                "FrozenMap get(ms)", "" + frozenTime));
+        assertEquals(hashSum, frozenSum);
+        assertTrue(frozen.footprint() < KEYS * 12L);
+    }
+
+    private static long lookup(Map<Integer, Integer> map, Integer[] probes) {
+        long sum = 0;
+        for (Integer probe : probes) sum += map.get(probe);
+        return sum;
+    }
+
+    // 5. 400 distinct hashCodes in the same bucket of 100, no displacement fits them into 445 slots
+    // build(ms): 47, timed out without MAX_DISPLACEMENT
+    @Test(timeout = 10_000)
+    public void adversarialHashCodeTest() {
+        int keys = 400;
+        Map<Integer, Integer> map = new HashMap<>();
+        for (int h = 0; map.size() < keys; h++)
+            if (bucket(h, keys / 4) == 0) map.put(h, map.size());
+        FrozenMap<Integer, Integer> frozen = FrozenMap.copyOf(map);
+        log.info(methodLog("build(ms)", "" + frozen.buildNanos() / 1_000_000));
+        map.forEach((key, value) -> assertEquals(value, frozen.get(key)));
+        assertEquals(map, frozen);
+        assertEquals(keys, Lists.newArrayList(frozen.entrySet()).size());
+    }
+
+    // the same bucket as FrozenMap: murmur3 fmix32, multiply-shift
+    private static int bucket(int h, int buckets) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return (int) (((h & 0xffffffffL) * buckets) >>> 32);
+    }
+}
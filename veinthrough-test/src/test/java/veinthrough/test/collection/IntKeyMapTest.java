@@ -0,0 +1,157 @@
+package veinthrough.test.collection;
+
+import com.google.common.collect.Lists;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import veinthrough.api._interface.IntIdentifiable;
+import veinthrough.api.collection.CollectionToMap;
+import veinthrough.api.collection.IntKeyMap;
+import veinthrough.api.collection.LongKeyMap;
+import veinthrough.test.AbstractUnitTester;
+import veinthrough.test._class.Employee;
+import veinthrough.test._class.Manager;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+import static veinthrough.api.collection.CollectionToMap.RETAIN_MANNER.RETAIN_FIRST;
+import static veinthrough.api.collection.CollectionToMap.RETAIN_MANNER.RETAIN_LAST;
+import static veinthrough.api.util.MethodLog.methodLog;
+
+/**
+ * @author veinthrough
+ * <p>
+ * IntKeyMap/LongKeyMap: open addressing maps without boxing the keys.
+ * @see veinthrough.api.collection.IntKeyMap
+ * @see CollectionToMapTest
+ * <p>---------------------------------------------------------
+ * <pre>
+ * Tests:
+ * 1. random put/get/remove, the same as HashMap, remove() by backward shift
+ * 2. CollectionToMap.toUniqueIntMap(): retain first/last
+ * 3. CollectionToMap.toListedLongMap(): LongIdentifiable Employee/Manager
+ * 4. allocation per entry: toUniqueMap() HashMap<Integer, T> vs toUniqueIntMap() IntKeyMap<T>
+ * </pre>
+ */
+@Slf4j
+public class IntKeyMapTest extends AbstractUnitTester {
+    private static final int ENTITIES = 1_000_000;
+
+    @Override
+    public void test() {
+    }
+
+    private static class Entity implements IntIdentifiable {
+        private final int id;
+        private final String name;
+
+        Entity(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        @Override
+        public int getIntIdentifier() {
+            return id;
+        }
+
+        @Override
+        public String toString() {
+            return id + ":" + name;
+        }
+    }
+
+    // 1. the same as HashMap
+    @Test
+    public void randomTest() {
+        IntKeyMap<Integer> map = new IntKeyMap<>();
+        LongKeyMap<Integer> longMap = new LongKeyMap<>(4);
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(17);
+        for (int i = 0; i < 200_000; i++) {
+            // small key range: many collisions and removes
+            int key = random.nextInt(1000) - 500;
+            if (random.nextInt(3) == 0) {
+                Integer removed = expected.remove(key);
+                assertEquals(removed, map.remove(key));
+                assertEquals(removed, longMap.remove(key));
+            } else {
+                Integer previous = expected.put(key, i);
+                assertEquals(previous, map.put(key, i));
+                assertEquals(previous, longMap.put(key, i));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        expected.forEach((key, value) -> assertEquals(value, map.get(key)));
+        int[] keys = map.keys();
+        Arrays.sort(keys);
+        assertArrayEquals(expected.keySet().stream().mapToInt(Integer::intValue).sorted().toArray(), keys);
+        assertEquals(map.size(), longMap.size());
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(0));
+    }
+
+    // 2. retain first/last
+    @Test
+    public void uniqueIntMapTest() {
+        List<Entity> entities = Lists.newArrayList(
+                new Entity(1, "aardvark"), new Entity(2, "elephant"), new Entity(1, "koala"));
+        IntKeyMap<Entity> first = CollectionToMap.toUniqueIntMap(entities, RETAIN_FIRST);
+        IntKeyMap<Entity> last = CollectionToMap.toUniqueIntMap(entities, RETAIN_LAST);
+        log.info(methodLog("first", first.toString(), "last", last.toString()));
+        assertEquals(2, first.size());
+        assertEquals("aardvark", first.get(1).name);
+        assertEquals("koala", last.get(1).name);
+        assertEquals(2, CollectionToMap.toListedIntMap(entities).get(1).size());
+    }
+
+    // 3. LongIdentifiable Employee/Manager
+    @Test
+    public void listedLongMapTest() {
+        Employee worker = new Employee("Carl Cracker", 60000D);
+        Manager ceo = new Manager("Gus Greedy", 1000000D, 80000D);
+        List<Employee> employees = Lists.newArrayList(worker, ceo, worker);
+        LongKeyMap<List<Employee>> map = CollectionToMap.toListedLongMap(employees);
+        log.info(methodLog(map.toString()));
+        assertEquals(2, map.size());
+        assertEquals(2, map.get(worker.getId()).size());
+        assertSame(ceo, map.get(ceo.getId()).get(0));
+    }
+
+    // 4. allocation(bytes) per entry, 1M entities
+    // toUniqueMap(HashMap<Integer, T>): 56.4, toUniqueIntMap(IntKeyMap<T>): 16.8
+    @Test
+    public void allocationTest() {
+        List<Entity> entities = IntStream.range(0, ENTITIES)
+                .mapToObj(i -> new Entity(i, null))
+                .collect(Collectors.toList());
+        // warm up
+        CollectionToMap.toUniqueMap(entities, RETAIN_FIRST);
+        CollectionToMap.toUniqueIntMap(entities, RETAIN_FIRST);
+
+        double boxed = allocatedPerEntry(() -> CollectionToMap.toUniqueMap(entities, RETAIN_FIRST));
+        double primitive = allocatedPerEntry(() -> CollectionToMap.toUniqueIntMap(entities, RETAIN_FIRST));
+        log.info(methodLog(
+                "toUniqueMap(HashMap<Integer, T>)", String.format("%.1f", boxed),
+                "toUniqueIntMap(IntKeyMap<T>)", String.format("%.1f", primitive)));
+        assertTrue(primitive * 2 < boxed);
+    }
+
+    private static double allocatedPerEntry(Supplier<?> build) {
+        com.sun.management.ThreadMXBean bean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long before = bean.getThreadAllocatedBytes(threadId);
+        assertNotNull(build.get());
+        return (double) (bean.getThreadAllocatedBytes(threadId) - before) / ENTITIES;
+    }
+}
@@ -0,0 +1,183 @@
+package veinthrough.test.collection;
+
+import com.google.common.collect.Lists;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import veinthrough.api.collection.CollectionToMap;
+import veinthrough.api.collection.CollectionToMap.RETAIN_MANNER;
+import veinthrough.api.collection.LiveIndex;
+import veinthrough.test.AbstractUnitTester;
+import veinthrough.test._class.Employee;
+import veinthrough.test._class.Manager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+import static veinthrough.api.collection.CollectionToMap.RETAIN_MANNER.RETAIN_ANY;
+import static veinthrough.api.collection.CollectionToMap.RETAIN_MANNER.RETAIN_FIRST;
+import static veinthrough.api.collection.CollectionToMap.RETAIN_MANNER.RETAIN_LAST;
+import static veinthrough.api.util.MethodLog.methodLog;
+
+/**
+ * @author veinthrough
+ * <p>
+ * LiveIndex: a unique index updated by add/remove/update deltas.
+ * @see veinthrough.api.collection.LiveIndex
+ * @see CollectionToMapTest
+ * <p>---------------------------------------------------------
+ * <pre>
+ * Tests:
+ * 1. random deltas: the same as toUniqueMap() rebuilt over the collection, retain first/last
+ * 2. LongIdentifiable Employee/Manager: the next one retained when the retained one is removed
+ * 3. snapshot(): consistent while a writer adds, shared until the next delta
+ * 4. time of 1000 deltas over 100K elements: rebuild by toUniqueMap() vs LiveIndex
+ * 5. RETAIN_ANY: IllegalArgumentException, only for parallel
+ * 6. null key: NullPointerException with the element, the index not changed
+ * </pre>
+ */
+@Slf4j
+public class LiveIndexTest extends AbstractUnitTester {
+    private static final int ELEMENTS = 100_000;
+    private static final int DELTAS = 1000;
+
+    @Override
+    public void test() {
+    }
+
+    // 1. the same as toUniqueMap()
+    @Test
+    public void randomDeltaTest() {
+        Function<Integer, Integer> keyFunction = i -> i % 50;
+        for (RETAIN_MANNER manner : new RETAIN_MANNER[]{RETAIN_FIRST, RETAIN_LAST}) {
+            Random random = new Random(17);
+            List<Integer> list = IntStream.range(0, 200).boxed().collect(Collectors.toList());
+            LiveIndex<Integer, Integer> index = CollectionToMap.toLiveIndex(list, keyFunction, manner);
+            for (int i = 0; i < 5000; i++) {
+                int element = random.nextInt(1000);
+                switch (random.nextInt(3)) {
+                    case 0:
+                        list.add(element);
+                        index.add(element);
+                        break;
+                    case 1:
+                        assertEquals(list.remove(Integer.valueOf(element)), index.remove(element));
+                        break;
+                    default:
+                        if (list.isEmpty()) break;
+                        // the first occurrence, update() replaces the first equal element
+                        int position = list.indexOf(list.get(random.nextInt(list.size())));
+                        assertTrue(index.update(list.set(position, element), element));
+                }
+                assertEquals(CollectionToMap.toUniqueMap(list, keyFunction, manner), index.snapshot());
+            }
+            assertEquals(list.stream().map(keyFunction).distinct().count(), index.size());
+        }
+    }
+
+    // 2. the next one retained
+    @Test
+    public void identifiableTest() {
+        Employee worker = new Employee("Carl Cracker", 60000D);
+        Manager ceo = new Manager("Gus Greedy", 1000000D, 80000D);
+        LiveIndex<Long, Employee> index = CollectionToMap.toLiveIndex(Lists.newArrayList(worker), RETAIN_FIRST);
+        index.add(ceo);
+        assertSame(ceo, index.get(ceo.getId()));
+        assertFalse(index.remove(new Employee("Tony Tester", 40000D)));
+        assertTrue(index.remove(worker));
+        assertFalse(index.containsKey(worker.getId()));
+        assertEquals(2, index.version());
+        log.info(methodLog(index.toString()));
+    }
+
+    // 3. snapshot consistent: keys always [0, size)
+    @Test
+    public void snapshotTest() throws InterruptedException {
+        LiveIndex<Integer, Integer> index = CollectionToMap.toLiveIndex(
+                new ArrayList<>(), Function.identity(), RETAIN_FIRST);
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> error = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            int snapshots = 0;
+            while (!done.get()) {
+                Map<Integer, Integer> snapshot = index.snapshot();
+                int size = snapshot.size();
+                if (size > 0 && !snapshot.containsKey(size - 1) || snapshot.containsKey(size))
+                    error.set("inconsistent snapshot of size " + size);
+                snapshots++;
+            }
+            log.info(methodLog("snapshots", "" + snapshots));
+        });
+        reader.start();
+        for (int i = 0; i < ELEMENTS; i++) index.add(i);
+        done.set(true);
+        reader.join();
+        assertNull(error.get());
+
+        Map<Integer, Integer> snapshot = index.snapshot();
+        assertSame(snapshot, index.snapshot());
+        index.remove(0);
+        assertNotSame(snapshot, index.snapshot());
+        assertEquals(ELEMENTS, snapshot.size());
+        assertEquals(ELEMENTS - 1, index.snapshot().size());
+    }
+
+    // 4. time(ms) of 1000 deltas over 100K elements, 1 CPU
+    // rebuild by toUniqueMap(): 2837, LiveIndex: 3
+    @Test
+    public void deltaTimeTest() {
+        Function<Integer, Integer> keyFunction = i -> i % (ELEMENTS / 2);
+        List<Integer> list = IntStream.range(0, ELEMENTS).boxed().collect(Collectors.toList());
+        LiveIndex<Integer, Integer> index = CollectionToMap.toLiveIndex(list, keyFunction, RETAIN_LAST);
+        Map<Integer, Integer> rebuilt = null;
+
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < DELTAS; i++) {
+            list.set(i, ELEMENTS + i);
+            rebuilt = CollectionToMap.toUniqueMap(list, keyFunction, RETAIN_LAST);
+        }
+        long rebuildTime = System.currentTimeMillis() - start;
+        start = System.currentTimeMillis();
+        for (int i = 0; i < DELTAS; i++) index.update(i, ELEMENTS + i);
+        long deltaTime = System.currentTimeMillis() - start;
+        log.info(methodLog(
+                "rebuild by toUniqueMap()", "" + rebuildTime,
+                "LiveIndex", "" + deltaTime));
+        assertEquals(rebuilt, index.snapshot());
+    }
+
+    // 5. only for parallel
+    @Test(expected = IllegalArgumentException.class)
+    public void retainAnyTest() {
+        CollectionToMap.toLiveIndex(Lists.newArrayList(1, 2, 3), Function.identity(), RETAIN_ANY);
+    }
+
+    // 6. null key rejected
+    @Test
+    public void nullKeyTest() {
+        Function<Integer, Integer> keyFunction = i -> i < 0 ? null : i % 10;
+        LiveIndex<Integer, Integer> index = LiveIndex.of(Lists.newArrayList(1, 2, 3), keyFunction, RETAIN_FIRST);
+        try {
+            index.add(-1);
+            fail();
+        } catch (NullPointerException e) {
+            log.info(methodLog("add", e.getMessage()));
+            assertTrue(e.getMessage().contains("-1"));
+        }
+        try {
+            index.update(2, -2);
+            fail();
+        } catch (NullPointerException ignored) {
+        }
+        assertEquals(0, index.version());
+        assertEquals(Integer.valueOf(2), index.get(2));
+        assertEquals(3, index.size());
+    }
+}
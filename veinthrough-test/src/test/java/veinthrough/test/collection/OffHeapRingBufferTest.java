@@ -0,0 +1,230 @@
+package veinthrough.test.collection;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import veinthrough.api.collection.OffHeapRingBuffer;
+import veinthrough.api.collection.OffHeapRingBuffer.Record;
+import veinthrough.test.AbstractUnitTester;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+import static veinthrough.api.util.MethodLog.methodLog;
+
+/**
+ * @author veinthrough
+ * <p>
+ * OffHeapRingBuffer: fixed-size binary records in a direct ByteBuffer/MappedByteBuffer.
+ * @see veinthrough.api.collection.OffHeapRingBuffer
+ * @see veinthrough.test.nio.ByteCharBufferTest
+ * <p>---------------------------------------------------------
+ * <pre>
+ * Tests:
+ * 1. flyweight: tryClaim()/publish(), peek()/release(), full/empty, wrap around
+ * 2. offer(ByteBuffer)/poll(ByteBuffer): copy a whole record
+ * 3. mapped file: head/tail/records survive reopening
+ * 4. allocation on the heap per record written and read by the flyweight, and copied by offer()/poll()
+ * 5. publish()/release() without tryClaim()/peek(): IllegalStateException, header not changed
+ * 6. mapped file of the right size but without the magic: IllegalStateException, file not overwritten
+ * </pre>
+ */
+@Slf4j
+public class OffHeapRingBufferTest extends AbstractUnitTester {
+    private static final int CAPACITY = 4;
+    // timestamp(long) + id(int) + value(double)
+    private static final int RECORD_SIZE = 20;
+    private static final int TIMESTAMP = 0;
+    private static final int ID = 8;
+    private static final int VALUE = 12;
+    private static final int RECORDS = 1_000_000;
+
+    @Override
+    public void test() {
+    }
+
+    // 1. flyweight
+    @Test
+    public void flyweightTest() {
+        OffHeapRingBuffer buffer = OffHeapRingBuffer.allocate(CAPACITY, RECORD_SIZE);
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < CAPACITY; i++) {
+                write(buffer.tryClaim(), i);
+                buffer.publish();
+            }
+            assertNull(buffer.tryClaim());
+            assertEquals(CAPACITY, buffer.size());
+            for (int i = 0; i < CAPACITY; i++) {
+                Record record = buffer.peek();
+                assertEquals(i, record.getInt(ID));
+                assertEquals(i * 1000L, record.getLong(TIMESTAMP));
+                assertEquals(i * 0.5, record.getDouble(VALUE), 0);
+                buffer.release();
+            }
+            assertNull(buffer.peek());
+        }
+        try {
+            buffer.tryClaim().putLong(RECORD_SIZE - 4, 0);
+            fail();
+        } catch (IndexOutOfBoundsException ignored) {
+        }
+    }
+
+    // 2. copy a whole record
+    @Test
+    public void copyTest() {
+        OffHeapRingBuffer buffer = OffHeapRingBuffer.allocate(CAPACITY, RECORD_SIZE);
+        ByteBuffer src = ByteBuffer.allocate(RECORD_SIZE * 2);
+        src.putLong(1L).putInt(2).putDouble(3.0).putLong(4L).putInt(5).putDouble(6.0).flip();
+        assertTrue(buffer.offer(src));
+        assertTrue(buffer.offer(src));
+        assertFalse(src.hasRemaining());
+        assertEquals(2, buffer.peek().getInt(ID));
+        ByteBuffer dst = ByteBuffer.allocate(RECORD_SIZE);
+        assertTrue(buffer.poll(dst));
+        dst.flip();
+        assertEquals(1L, dst.getLong());
+        assertEquals(4L, buffer.peek().getLong(TIMESTAMP));
+    }
+
+    // 3. mapped file survives reopening
+    @Test
+    public void mappedTest() throws IOException {
+        Path file = Files.createTempFile("ring", ".buf");
+        try {
+            OffHeapRingBuffer buffer = OffHeapRingBuffer.map(file, CAPACITY, RECORD_SIZE);
+            for (int i = 0; i < 3; i++) {
+                write(buffer.tryClaim(), i);
+                buffer.publish();
+            }
+            buffer.peek();
+            buffer.release();
+            buffer.force();
+
+            OffHeapRingBuffer reopened = OffHeapRingBuffer.map(file, CAPACITY, RECORD_SIZE);
+            assertEquals(2, reopened.size());
+            assertEquals(1, reopened.peek().getInt(ID));
+            log.info(methodLog("File size", "" + Files.size(file)));
+            assertEquals(OffHeapRingBuffer.HEADER_SIZE + CAPACITY * RECORD_SIZE, Files.size(file));
+            try {
+                OffHeapRingBuffer.map(file, CAPACITY * 2, RECORD_SIZE);
+                fail();
+            } catch (IllegalArgumentException ignored) {
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // 4. allocation(bytes) per record
+    // flyweight: 0.0, offer()/poll(): 0.0
+    @Test
+    public void allocationTest() {
+        OffHeapRingBuffer buffer = OffHeapRingBuffer.allocate(CAPACITY, RECORD_SIZE);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        // warm up
+        transfer(buffer);
+        copy(buffer, record);
+        com.sun.management.ThreadMXBean bean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long before = bean.getThreadAllocatedBytes(threadId);
+        transfer(buffer);
+        double flyweight = (double) (bean.getThreadAllocatedBytes(threadId) - before) / RECORDS;
+        before = bean.getThreadAllocatedBytes(threadId);
+        copy(buffer, record);
+        double copied = (double) (bean.getThreadAllocatedBytes(threadId) - before) / RECORDS;
+        log.info(methodLog(
+                "flyweight", String.format("%.1f", flyweight),
+                "offer()/poll()", String.format("%.1f", copied)));
+        assertTrue(flyweight < 1);
+        assertTrue(copied < 1);
+    }
+
+    // 5. unbalanced publish()/release()
+    @Test
+    public void unbalancedTest() {
+        OffHeapRingBuffer buffer = OffHeapRingBuffer.allocate(CAPACITY, RECORD_SIZE);
+        try {
+            buffer.release();
+            fail();
+        } catch (IllegalStateException ignored) {
+        }
+        write(buffer.tryClaim(), 0);
+        buffer.publish();
+        try {
+            buffer.publish();
+            fail();
+        } catch (IllegalStateException ignored) {
+        }
+        assertEquals(1, buffer.size());
+        buffer.peek();
+        buffer.release();
+        try {
+            buffer.release();
+            fail();
+        } catch (IllegalStateException ignored) {
+        }
+        assertTrue(buffer.isEmpty());
+        // full: tryClaim() returns null, nothing to publish
+        for (int i = 0; i < CAPACITY; i++) {
+            write(buffer.tryClaim(), i);
+            buffer.publish();
+        }
+        assertNull(buffer.tryClaim());
+        try {
+            buffer.publish();
+            fail();
+        } catch (IllegalStateException ignored) {
+        }
+        assertEquals(CAPACITY, buffer.size());
+    }
+
+    // 6. foreign file of the right size
+    @Test
+    public void foreignFileTest() throws IOException {
+        Path file = Files.createTempFile("ring", ".buf");
+        try {
+            byte[] content = new byte[OffHeapRingBuffer.HEADER_SIZE + CAPACITY * RECORD_SIZE];
+            content[0] = 1;
+            Files.write(file, content);
+            try {
+                OffHeapRingBuffer.map(file, CAPACITY, RECORD_SIZE);
+                fail();
+            } catch (IllegalStateException ignored) {
+            }
+            assertArrayEquals(content, Files.readAllBytes(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void copy(OffHeapRingBuffer buffer, ByteBuffer record) {
+        for (int i = 0; i < RECORDS; i++) {
+            record.clear();
+            buffer.offer(record);
+            record.clear();
+            buffer.poll(record);
+        }
+    }
+
+    private static long transfer(OffHeapRingBuffer buffer) {
+        long sum = 0;
+        for (int i = 0; i < RECORDS; i++) {
+            write(buffer.tryClaim(), i);
+            buffer.publish();
+            sum += buffer.peek().getInt(ID);
+            buffer.release();
+        }
+        return sum;
+    }
+
+    private static void write(Record record, int i) {
+        record.putLong(TIMESTAMP, i * 1000L)
+                .putInt(ID, i)
+                .putDouble(VALUE, i * 0.5);
+    }
+}
@@ -0,0 +1,145 @@
+package veinthrough.test.collection;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import veinthrough.api.collection.CircularArrayQueue;
+import veinthrough.api.collection.DoubleCircularQueue;
+import veinthrough.api.collection.IntCircularQueue;
+import veinthrough.api.collection.LongCircularQueue;
+import veinthrough.test.AbstractUnitTester;
+
+import java.lang.management.ManagementFactory;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Queue;
+
+import static org.junit.Assert.*;
+import static veinthrough.api.util.MethodLog.methodLog;
+
+/**
+ * @author veinthrough
+ * <p>
+ * Int/Long/DoubleCircularQueue: primitive circular queues without boxing.
+ * @see veinthrough.api.collection.IntCircularQueue
+ * <p>---------------------------------------------------------
+ * <pre>
+ * Tests:
+ * 1. offer/poll/peek, full/empty, wrap around
+ * 2. drainTo(int[]): elements wrapped around the end of the array
+ * 3. iterator: fail-fast
+ * 4. allocation per offer+poll: CircularArrayQueue<Long> vs LongCircularQueue
+ * </pre>
+ */
+@Slf4j
+public class PrimitiveCircularQueueTest extends AbstractUnitTester {
+    private static final int CAPACITY = 5;
+    private static final int OPERATIONS = 1_000_000;
+
+    @Override
+    public void test() {
+    }
+
+    // 1. offer/poll/peek
+    @Test
+    public void apiTest() {
+        IntCircularQueue q = new IntCircularQueue(CAPACITY);
+        for (int i = 0; i < CAPACITY; i++) assertTrue(q.offerInt(i));
+        assertFalse(q.offerInt(CAPACITY));
+        assertEquals(0, q.pollInt());
+        assertEquals(1, q.pollInt());
+        assertTrue(q.offerInt(5));
+        assertTrue(q.offerInt(6));
+        assertEquals(2, q.peekInt());
+        assertEquals("[2, 3, 4, 5, 6]", q.toString());
+        q.clear();
+        assertTrue(q.isEmpty());
+        try {
+            q.pollInt();
+            fail();
+        } catch (NoSuchElementException ignored) {
+        }
+
+        LongCircularQueue longs = new LongCircularQueue(CAPACITY);
+        longs.offerLong(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, longs.pollLong());
+        DoubleCircularQueue doubles = new DoubleCircularQueue(CAPACITY);
+        doubles.offerDouble(0.5);
+        assertEquals(0.5, doubles.pollDouble(), 0);
+    }
+
+    // 2. drainTo
+    @Test
+    public void drainToTest() {
+        IntCircularQueue q = new IntCircularQueue(CAPACITY);
+        for (int i = 0; i < CAPACITY; i++) q.offerInt(i);
+        q.pollInt();
+        q.pollInt();
+        q.offerInt(5);
+        q.offerInt(6);
+        int[] dst = new int[CAPACITY - 1];
+        assertEquals(CAPACITY - 1, q.drainTo(dst));
+        assertArrayEquals(new int[]{2, 3, 4, 5}, dst);
+        assertEquals(1, q.size());
+        assertEquals(6, q.pollInt());
+    }
+
+    // 3. fail-fast
+    @Test(expected = ConcurrentModificationException.class)
+    public void failFastTest() {
+        IntCircularQueue q = new IntCircularQueue(CAPACITY);
+        q.offerInt(1);
+        q.offerInt(2);
+        PrimitiveIterator.OfInt it = q.iterator();
+        it.nextInt();
+        q.offerInt(3);
+        it.hasNext();
+    }
+
+    // 4. allocation(bytes) per offer+poll
+    // CircularArrayQueue<Long>: 24.0, LongCircularQueue: 0.0
+    @Test
+    public void allocationTest() {
+        Queue<Long> boxed = new CircularArrayQueue<>(CAPACITY);
+        LongCircularQueue primitive = new LongCircularQueue(CAPACITY);
+        // warm up
+        boxedOps(boxed);
+        primitiveOps(primitive);
+
+        double boxedBytes = allocatedPerOperation(() -> boxedOps(boxed));
+        double primitiveBytes = allocatedPerOperation(() -> primitiveOps(primitive));
+        log.info(methodLog(
+                "CircularArrayQueue<Long>", String.format("%.1f", boxedBytes),
+                "LongCircularQueue", String.format("%.1f", primitiveBytes)));
+        assertTrue(primitiveBytes < 1);
+        assertTrue(boxedBytes > primitiveBytes);
+    }
+
+    private static long boxedOps(Queue<Long> q) {
+        long sum = 0;
+        // timestamps out of the Long cache
+        for (long i = System.nanoTime(), end = i + OPERATIONS; i < end; i++) {
+            q.offer(i);
+            sum += q.poll();
+        }
+        return sum;
+    }
+
+    private static long primitiveOps(LongCircularQueue q) {
+        long sum = 0;
+        for (long i = System.nanoTime(), end = i + OPERATIONS; i < end; i++) {
+            q.offerLong(i);
+            sum += q.pollLong();
+        }
+        return sum;
+    }
+
+    private static double allocatedPerOperation(Runnable operations) {
+        com.sun.management.ThreadMXBean bean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long before = bean.getThreadAllocatedBytes(threadId);
+        operations.run();
+        return (double) (bean.getThreadAllocatedBytes(threadId) - before) / OPERATIONS;
+    }
+}
@@ -0,0 +1,110 @@
+package veinthrough.test.collection;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import veinthrough.api.collection.SpscArrayQueue;
+import veinthrough.test.AbstractUnitTester;
+
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+import static veinthrough.api.util.MethodLog.methodLog;
+
+/**
+ * @author veinthrough
+ * <p>
+ * SpscArrayQueue: single-producer/single-consumer lock-free ring buffer.
+ * @see veinthrough.api.collection.SpscArrayQueue
+ * <p>---------------------------------------------------------
+ * <pre>
+ * Tests:
+ * 1. Queue API in one thread: capacity rounded up to a power of two, FIFO, full/empty
+ * 2. handoff: 一个producer thread, 一个consumer thread, 所有element按顺序收到
+ * 3. throughput: SpscArrayQueue vs ArrayBlockingQueue, offer()/poll() with busy spin
+ * </pre>
+ */
+@Slf4j
+public class SpscArrayQueueTest extends AbstractUnitTester {
+    private static final int CAPACITY = 1000;
+    private static final int ELEMENTS = 10_000_000;
+    private static final int ROUNDS = 3;
+
+    @Override
+    public void test() {
+    }
+
+    // 1. Queue API
+    @Test
+    public void apiTest() {
+        SpscArrayQueue<String> q = new SpscArrayQueue<>(5);
+        assertEquals(8, q.capacity());
+        assertTrue(q.isEmpty());
+        assertNull(q.poll());
+        for (int i = 0; i < 8; i++) assertTrue(q.offer("" + i));
+        assertFalse(q.offer("8"));
+        assertEquals(8, q.size());
+        assertEquals("0", q.peek());
+        assertEquals("0", q.remove());
+        assertTrue(q.offer("8"));
+        assertEquals("[1, 2, 3, 4, 5, 6, 7, 8]", q.toString());
+        log.info(methodLog(q.toString()));
+        while (q.poll() != null) ;
+        assertEquals(0, q.size());
+    }
+
+    // 2. handoff between 2 threads
+    @Test
+    public void handoffTest() throws InterruptedException {
+        assertEquals(ELEMENTS, transfer(new SpscArrayQueue<>(CAPACITY)));
+    }
+
+    // 3. throughput(million ops/s)
+    // SpscArrayQueue: 154.2, ArrayBlockingQueue: 56.1
+    @Test
+    public void throughputTest() throws InterruptedException {
+        log.info(methodLog(
+                "SpscArrayQueue", String.format("%.1f", throughput(() -> new SpscArrayQueue<>(CAPACITY))),
+                "ArrayBlockingQueue", String.format("%.1f", throughput(() -> new ArrayBlockingQueue<>(CAPACITY)))));
+    }
+
+    // best of ROUNDS, the first ones warm up
+    private static double throughput(Supplier<Queue<Integer>> queue) throws InterruptedException {
+        double best = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            transfer(queue.get());
+            best = Math.max(best, ELEMENTS * 1000.0 / (System.nanoTime() - start));
+        }
+        return best;
+    }
+
+    // @return number of elements received in order
+    private static int transfer(Queue<Integer> queue) throws InterruptedException {
+        Integer[] values = new Integer[256];
+        for (int i = 0; i < values.length; i++) values[i] = i;
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < ELEMENTS; i++) {
+                while (!queue.offer(values[i & 255])) Thread.yield();
+            }
+        });
+        int[] received = {0};
+        Thread consumer = new Thread(() -> {
+            while (received[0] < ELEMENTS) {
+                Integer value = queue.poll();
+                if (value == null) {
+                    Thread.yield();
+                } else {
+                    if (value != (received[0] & 255)) return;
+                    received[0]++;
+                }
+            }
+        });
+        producer.start();
+        consumer.start();
+        producer.join();
+        consumer.join();
+        return received[0];
+    }
+}
@@ -18,7 +18,10 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 import static veinthrough.api.util.Constants.MILLIS_PER_SECOND;
-import static veinthrough.api.util.MethodLog.*;
+import static veinthrough.api.util.MethodLog.debug;
+import static veinthrough.api.util.MethodLog.error;
+import static veinthrough.api.util.MethodLog.info;
+import static veinthrough.api.util.MethodLog.warn;
 
 /**
  * @author veinthrough
@@ -172,12 +175,12 @@ public class Piper
             default:
                 break;
         }
-        log.debug(methodLog("Invoke all tasks",
-                "tasks", tasks.toString()));
+        debug(log, "Invoke all tasks",
+                "tasks", tasks.toString());
         try {
             pool.invokeAll(tasks);
         } catch (InterruptedException e) {
-            log.error(exceptionLog(e));
+            error(log, e);
         } finally {
             pool.shutdown();
         }
@@ -189,7 +192,7 @@ public class Piper
 
     private boolean checkEffective(Piper peer, DUTY duty) {
         if (!duty.effective()) {
-            log.error(methodLog("Ineffective peer DUTY"));
+            error(log, "Ineffective peer DUTY");
             return false;
         } else return peer.getDuty().effectiveOf(duty) &&
                 getDuty().effectiveOf(duty.effectivePeerMode());
@@ -197,10 +200,10 @@ public class Piper
 
     private boolean checkEffective(Piper peer) {
         if (peer.getDuty() == null) {
-            log.error(methodLog("Null peer DUTY"));
+            error(log, "Null peer DUTY");
             return false;
         } else if (!peer.getDuty().effective() && !duty.effective()) {
-            log.error(methodLog("Both ineffective DUTY"));
+            error(log, "Both ineffective DUTY");
             return false;
         } else {
             return duty.effective() ? peer.getDuty().effectiveOf(duty.effectivePeerMode()) :
@@ -253,10 +256,9 @@ public class Piper
         try {
 //            int len = inStream.read(buf);
             int len = inStream.read(buf, 0, DEFAULT_PIPE_BUFFER_SIZE);
-            log.info(methodLog(
-                    String.format("Read %4d bytes:%s", len, new String(buf, 0, len))));
+            info(log, () -> String.format("Read %4d bytes:%s", len, new String(buf, 0, len)));
         } catch (IOException e) {
-            log.warn(exceptionLog(e));
+            warn(log, e);
         }
     }
 
@@ -267,22 +269,20 @@ public class Piper
         try {
 //            int len = reader.read(buf);
             int len = reader.read(buf, 0, DEFAULT_PIPE_BUFFER_SIZE);
-            log.info(methodLog(
-                    String.format("Read %4d chars:%s", len, new String(buf, 0, len))));
+            info(log, () -> String.format("Read %4d chars:%s", len, new String(buf, 0, len)));
         } catch (IOException e) {
-            log.warn(exceptionLog(e));
+            warn(log, e);
         }
     }
 
     private void writeByteMessage() {
         String str = constructLongMessage(MAX_PIPE_BUFFER_SIZE + 2);
         try {
-            log.info(methodLog(
-                    String.format("Writing %4d bytes:%s", str.length(), str)));
+            info(log, () -> String.format("Writing %4d bytes:%s", str.length(), str));
 //            outStream.write(str.getBytes());
             outStream.write(str.getBytes(), 0, str.length());
         } catch (IOException e) {
-            log.warn(exceptionLog(e));
+            warn(log, e);
         }
 
     }
@@ -290,12 +290,11 @@ public class Piper
     private void writeCharMessage() {
         String str = constructLongMessage(MAX_PIPE_BUFFER_SIZE + 2);
         try {
-            log.info(methodLog(
-                    String.format("Writing %4d chars:%s", str.length(), str)));
+            info(log, () -> String.format("Writing %4d chars:%s", str.length(), str));
 //            writer.write(str);
             writer.write(str.toCharArray(), 0, str.length());
         } catch (IOException e) {
-            log.warn(exceptionLog(e));
+            warn(log, e);
         }
     }
 
@@ -326,7 +325,7 @@ public class Piper
             if (null != reader) reader.close();
             if (null != writer) writer.close();
         } catch (IOException e) {
-            log.warn(exceptionLog(e));
+            warn(log, e);
         }
     }
 
@@ -0,0 +1,222 @@
+package veinthrough.test.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.PatternLayout;
+import org.apache.log4j.WriterAppender;
+import org.junit.Test;
+import veinthrough.api.util.LogEvent;
+import veinthrough.api.util.MethodLog;
+import veinthrough.test.AbstractUnitTester;
+
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+import static veinthrough.api.util.MethodLog.*;
+
+/**
+ * @author veinthrough
+ * <p>
+ * MethodLog logger-aware API: trace()/debug()/info()/warn()/error(log, ...).
+ * @see MethodLog
+ * @see CurrentMethodTest
+ * @see MethodLog#getMethodString(int)
+ * <p>---------------------------------------------------------
+ * <pre>
+ * Tests:
+ * 1. level enabled: the same log string as log.debug(methodLog(...))/log.warn(exceptionLog(...))
+ * 2. level disabled: allocation per call, log.debug(methodLog(...)) vs debug(log, ...)
+ * 3. time per getMethodString(): Thread.getStackTrace() vs only the caller's frame
+ * 4. event(): HUMAN the same as methodLog(), KEY_VALUE/JSON quoted and escaped, nested events
+ * 5. event(): allocation per call vs methodLog() of pre-stringified vars
+ * 6. event() never ended(a kv() argument threw): the next events reused, no allocation per call
+ * </pre>
+ */
+@Slf4j
+public class MethodLogTest extends AbstractUnitTester {
+    private static final int CALLS = 100_000;
+    private static final int WARM_UPS = 3;
+
+    @Override
+    public void test() {
+    }
+
+    // 1. the same log string
+    @Test
+    public void enabledTest() {
+        Logger logger = Logger.getLogger(MethodLogTest.class);
+        Level level = logger.getLevel();
+        StringWriter writer = new StringWriter();
+        WriterAppender appender = new WriterAppender(new PatternLayout("%m"), writer);
+        logger.addAppender(appender);
+        logger.setLevel(Level.DEBUG);
+        try {
+            String expected = methodLog(1, "step", "name", "value") +
+                    methodLog("lazy") +
+                    exceptionLog(new IllegalStateException("failed"), "extra");
+            debug(log, 1, "step", "name", "value");
+            debug(log, () -> "lazy");
+            warn(log, new IllegalStateException("failed"), "extra");
+            String logged = writer.toString();
+            log.info(methodLog("Logged", logged));
+            assertTrue(expected.startsWith("[IN]enabledTest()"));
+            assertEquals(expected, logged);
+        } finally {
+            logger.removeAppender(appender);
+            logger.setLevel(level);
+        }
+    }
+
+    // 2. allocation(bytes) per call, debug disabled
+    // log.debug(methodLog()): 1344.0, debug(log, ...): 0.0
+    @Test
+    public void disabledTest() {
+        assertFalse(log.isDebugEnabled());
+        // warm up, until the varargs array of debug(log, ...) is scalar replaced
+        for (int i = 0; i < WARM_UPS; i++) {
+            eager();
+            lazy();
+        }
+        double eager = allocatedPerCall(MethodLogTest::eager);
+        double lazy = allocatedPerCall(MethodLogTest::lazy);
+        log.info(methodLog(
+                "log.debug(methodLog())", String.format("%.1f", eager),
+                "debug(log, ...)", String.format("%.1f", lazy)));
+        assertTrue(lazy * 100 < eager);
+    }
+
+    private static void eager() {
+        for (int i = 0; i < CALLS; i++) log.debug(methodLog("Loop ing ..."));
+    }
+
+    private static void lazy() {
+        for (int i = 0; i < CALLS; i++) debug(log, "Loop ing ...");
+    }
+
+    private static double allocatedPerCall(Runnable calls) {
+        com.sun.management.ThreadMXBean bean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long before = bean.getThreadAllocatedBytes(threadId);
+        calls.run();
+        return (double) (bean.getThreadAllocatedBytes(threadId) - before) / CALLS;
+    }
+
+    // 3. time(us) per getMethodString(), under junit about 30 frames deep
+    // Java 8(JavaLangAccess) Thread.getStackTrace(): 26.9, getMethodString(): 2.3
+    // 60 frames deep, Java 8: 35.4 vs 4.4, Java 17(StackWalker): 24.4 vs 7.5, Java 21: 23.2 vs 4.6
+    @Test
+    public void callerTimeTest() {
+        // [1] is getMethodString(), [2] is the caller
+        assertEquals("[IN]callerTimeTest()", getMethodString(2));
+        // warm up
+        stackTraceCaller();
+        resolvedCaller();
+        long start = System.nanoTime();
+        for (int i = 0; i < CALLS; i++) stackTraceCaller();
+        double stackTrace = (System.nanoTime() - start) / 1000.0 / CALLS;
+        start = System.nanoTime();
+        for (int i = 0; i < CALLS; i++) resolvedCaller();
+        double resolved = (System.nanoTime() - start) / 1000.0 / CALLS;
+        log.info(methodLog(
+                "Thread.getStackTrace()", String.format("%.1f", stackTrace),
+                "getMethodString()", String.format("%.1f", resolved)));
+        assertEquals("[IN]resolvedCaller()", resolvedCaller());
+        assertEquals("[IN]stackTraceCaller()", stackTraceCaller());
+        assertTrue(resolved < stackTrace);
+    }
+
+    // the old getMethodString()
+    private static String stackTraceCaller() {
+        return String.format("[IN]%s()", Thread.currentThread().getStackTrace()[1].getMethodName());
+    }
+
+    private static String resolvedCaller() {
+        return getMethodString(2);
+    }
+
+    // 4. formats
+    @Test
+    public void eventTest() {
+        int from = 3;
+        double amount = 2.5;
+        assertEquals(methodLog(1, "transfer", "from", "" + from, "amount", "" + amount, "flag", "" + true),
+                event("transfer").step(1).kv("from", from).kv("amount", amount).kv("flag", true).build());
+        assertEquals(methodLog("transfer"), event("transfer").build());
+        assertEquals(methodLog(12, "transfer"), event("transfer").step(12).build());
+        assertEquals("event=transfer method=eventTest step=1 from=3 amount=2.5 note=\"a \\\"b\\\"\" id=x1",
+                event(LogEvent.Format.KEY_VALUE, "transfer").step(1)
+                        .kv("from", from).kv("amount", amount).kv("note", "a \"b\"").kv("id", "x1").build());
+        assertEquals("{\"event\":\"transfer\",\"method\":\"eventTest\",\"from\":3,\"amount\":2.5," +
+                        "\"ratio\":\"NaN\",\"to\":null,\"note\":\"line\\nnext\\u0001\"}",
+                event(LogEvent.Format.JSON, "transfer")
+                        .kv("from", from).kv("amount", amount).kv("ratio", Double.NaN)
+                        .kv("to", (Object) null).kv("note", "line\nnext\u0001").build());
+        // an event made in a kv() argument doesn't reuse the unfinished one
+        assertEquals(methodLog("outer", "inner", methodLog("inner", "n", "1"), "n", "2"),
+                event("outer").kv("inner", event("inner").kv("n", 1).build()).kv("n", 2).build());
+        log.info(event("transfer").step(1).kv("from", from).kv("amount", amount).build());
+        log.info(event(LogEvent.Format.KEY_VALUE, "transfer").step(1).kv("from", from).kv("amount", amount).build());
+        log.info(event(LogEvent.Format.JSON, "transfer").step(1).kv("from", from).kv("amount", amount).build());
+    }
+
+    // 5. allocation(bytes) per call
+    // methodLog(): 4262.0, event(): 871.2, event() debug disabled: 0.0
+    @Test
+    public void eventAllocationTest() {
+        assertFalse(log.isDebugEnabled());
+        // warm up
+        for (int i = 0; i < WARM_UPS; i++) {
+            stringified();
+            structured();
+            disabledEvent();
+        }
+        double stringified = allocatedPerCall(MethodLogTest::stringified);
+        double structured = allocatedPerCall(MethodLogTest::structured);
+        double disabled = allocatedPerCall(MethodLogTest::disabledEvent);
+        log.info(methodLog(
+                "methodLog()", String.format("%.1f", stringified),
+                "event()", String.format("%.1f", structured),
+                "event() debug disabled", String.format("%.1f", disabled)));
+        assertTrue(structured < stringified);
+        assertTrue(disabled < 1);
+    }
+
+    private static void stringified() {
+        for (int i = 0; i < CALLS; i++)
+            methodLog(1, "transfer", "from", "" + i, "to", "" + (i + 1), "amount", "" + i * 0.5);
+    }
+
+    private static void structured() {
+        for (int i = 0; i < CALLS; i++)
+            event("transfer").step(1).kv("from", i).kv("to", i + 1).kv("amount", i * 0.5).build();
+    }
+
+    private static void disabledEvent() {
+        for (int i = 0; i < CALLS; i++)
+            event("transfer").step(1).kv("from", i).kv("to", i + 1).kv("amount", i * 0.5).debug(log);
+    }
+
+    // 6. allocation(bytes) per call after an event never ended
+    // event() debug disabled: 0.0, 1144.0 if the event never ended kept by the thread
+    @Test
+    public void abandonedEventTest() {
+        assertFalse(log.isDebugEnabled());
+        try {
+            event("abandoned").kv("value", failed()).debug(log);
+            fail();
+        } catch (IllegalStateException ignored) {
+        }
+        // warm up
+        for (int i = 0; i < WARM_UPS; i++) disabledEvent();
+        double disabled = allocatedPerCall(MethodLogTest::disabledEvent);
+        log.info(methodLog("event() debug disabled", String.format("%.1f", disabled)));
+        assertTrue(disabled < 1);
+    }
+
+    private static Object failed() {
+        throw new IllegalStateException("failed");
+    }
+}